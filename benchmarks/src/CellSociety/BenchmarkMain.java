@@ -0,0 +1,40 @@
+package CellSociety;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar
+ * Runs the JMH benchmarks selected on the command line (all of them by default) and writes the results as JSON,
+ * to jmh-result.json unless another file is given with -rff, so that results can be compared between releases
+ * With -checkAllocations it instead checks that no model allocates while stepping, exiting with status 1 if one does
+ */
+public class BenchmarkMain {
+    static final String RESULT_FILE = "jmh-result.json";
+    static final String CHECK_ALLOCATIONS_FLAG = "-checkAllocations";
+
+    /**
+     * @param args any JMH command line options, or -checkAllocations
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && CHECK_ALLOCATIONS_FLAG.equals(args[0])) {
+            if (!StepAllocationBenchmark.checkAllocations(System.out)) {
+                System.err.println("A model allocated memory while stepping.");
+                System.exit(1);
+            }
+            return;
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package CellSociety;
+
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import CellSociety.Engine.ParameterBlock;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * States, default parameters and neighbor indexes of the simulation models, matching the XML files
+ * in the resources folder, so benchmarks can build grids without parsing files
+ */
+class BenchmarkModels {
+    static final String SQUARE = "Square";
+    static final String TRIANGLE = "Triangle";
+    static final long SEED = 308;
+
+    private static final Map<String, List<String>> STATES = Map.of(
+            EngineFactory.GOL, List.of("Dead", "Alive"),
+            EngineFactory.FIRE, List.of("Burning", "Tree", "Empty"),
+            EngineFactory.WATOR, List.of("Fish", "Shark", "Empty"),
+            EngineFactory.SEG, List.of("Group1", "Group2", "Empty"),
+            EngineFactory.PERC, List.of("Open", "Blocked", "Percolated"),
+            EngineFactory.RPS, List.of("White", "Red", "Green", "Blue"));
+    private static final Map<String, List<Double>> PARAMETERS = Map.of(
+            EngineFactory.GOL, List.of(),
+            EngineFactory.FIRE, List.of(0.5),
+            EngineFactory.WATOR, List.of(3.0, 6.0, 5.0, 1.0),
+            EngineFactory.SEG, List.of(0.6, 1.0),
+            EngineFactory.PERC, List.of(),
+            EngineFactory.RPS, List.of());
+    private static final List<Integer> SQUARE_NEIGHBORS = List.of(0, 1, 2, 3, 4, 5, 6, 7);
+    private static final List<Integer> TRIANGLE_NEIGHBORS = List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+
+    private BenchmarkModels(){
+    }
+
+    /**
+     * @param simType name of the simulation model
+     * @return names of the model's states
+     */
+    static List<String> getStates(String simType){
+        return STATES.get(simType);
+    }
+
+    /**
+     * @param simType name of the simulation model
+     * @return new modifiable list of the model's parameters
+     */
+    static ArrayList<Double> getParameters(String simType){
+        return new ArrayList<>(PARAMETERS.get(simType));
+    }
+
+    /**
+     * @param shape cell shape
+     * @return indexes of all neighbors of the shape
+     */
+    static List<Integer> getNeighbors(String shape){
+        return SQUARE.equals(shape) ? SQUARE_NEIGHBORS : TRIANGLE_NEIGHBORS;
+    }
+
+    /**
+     * @param simType name of the simulation model
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return grid engine of the model with every state equally likely in every cell
+     */
+    static GridEngine createEngine(String simType, String shape, String edge, int rows, int cols){
+        StateDictionary states = new StateDictionary(getStates(simType));
+        StateGrid grid = new StateGrid(rows, cols);
+        Random random = new Random(SEED);
+        for (int cell = 0; cell < grid.size(); cell++) {
+            grid.setState(cell, (byte) random.nextInt(states.size()));
+        }
+        ParameterBlock parameters = new ParameterBlock(getParameters(simType));
+        return EngineFactory.create(simType, shape, edge, getNeighbors(shape), parameters, states, grid, SEED);
+    }
+}
@@ -0,0 +1,107 @@
+package CellSociety;
+
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times one generation of each model's rules on a toroidal square grid, both through the concrete Cell classes
+ * (findNextState() then updateState() on every Cell) and through the grid engine's Rule classes.
+ * The grid is re-randomized before every iteration, so models that settle quickly are still measured while active.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellRuleBenchmark {
+    private static final String EDGE = "Toroidal";
+
+    @Param({EngineFactory.GOL, EngineFactory.FIRE, EngineFactory.WATOR, EngineFactory.SEG, EngineFactory.RPS,
+            EngineFactory.PERC})
+    public String simType;
+
+    @Param({"100"})
+    public int size;
+
+    private Cell[][] myGrid;
+    private GridEngine myEngine;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        List<String> states = BenchmarkModels.getStates(simType);
+        Random random = new Random(BenchmarkModels.SEED);
+        myGrid = new Cell[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                myGrid[i][j] = createCell(i, j, states.get(random.nextInt(states.size())));
+            }
+        }
+        for (Cell[] row : myGrid) {
+            for (Cell cell : row) {
+                cell.findNeighbors(myGrid, BenchmarkModels.SQUARE, EDGE,
+                        BenchmarkModels.getNeighbors(BenchmarkModels.SQUARE));
+            }
+        }
+        myEngine = BenchmarkModels.createEngine(simType, BenchmarkModels.SQUARE, EDGE, size, size);
+    }
+
+    private Cell createCell(int row, int col, String state){
+        switch (simType) {
+            case EngineFactory.GOL:
+                return new CellGameOfLife(row, col, state, BenchmarkModels.getParameters(simType));
+            case EngineFactory.FIRE:
+                return new CellFire(row, col, state, BenchmarkModels.getParameters(simType));
+            case EngineFactory.WATOR:
+                return new CellWATOR(row, col, state, BenchmarkModels.getParameters(simType));
+            case EngineFactory.SEG:
+                return new CellSegregation(row, col, state, BenchmarkModels.getParameters(simType));
+            case EngineFactory.RPS:
+                return new CellRPS(row, col, state, BenchmarkModels.getParameters(simType));
+            case EngineFactory.PERC:
+                return new CellPercolation(row, col, state, BenchmarkModels.getParameters(simType));
+        }
+        throw new IllegalArgumentException("Unknown Simulation Type");
+    }
+
+    /**
+     * One generation through the Cell classes; updateState() is needed to reset the next states
+     */
+    @Benchmark
+    public void cellFindNextState(){
+        for (Cell[] row : myGrid) {
+            for (Cell cell : row) {
+                cell.findNextState();
+            }
+        }
+        for (Cell[] row : myGrid) {
+            for (Cell cell : row) {
+                cell.updateState();
+            }
+        }
+    }
+
+    /**
+     * One generation through the grid engine
+     */
+    @Benchmark
+    public void ruleFindNextState(){
+        myEngine.step();
+    }
+}
@@ -0,0 +1,64 @@
+package CellSociety;
+
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a whole-grid step of the grid engine for every combination of grid size, cell shape and edge type.
+ * The model and thread count default to a serial Game of Life and can be changed with -p simType=... -p threads=...
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class GridStepBenchmark {
+    @Param({"100", "500", "2000"})
+    public int size;
+
+    @Param({BenchmarkModels.SQUARE, BenchmarkModels.TRIANGLE})
+    public String shape;
+
+    @Param({"Finite", "Toroidal"})
+    public String edge;
+
+    @Param({EngineFactory.GOL})
+    public String simType;
+
+    @Param({"1"})
+    public int threads;
+
+    private GridEngine myEngine;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        myEngine = BenchmarkModels.createEngine(simType, shape, edge, size, size);
+        myEngine.setThreadCount(threads);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(){
+        myEngine.shutdown();
+    }
+
+    @Benchmark
+    public void step(){
+        myEngine.step();
+    }
+}
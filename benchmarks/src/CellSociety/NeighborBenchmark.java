@@ -0,0 +1,91 @@
+package CellSociety;
+
+import CellSociety.Neighbors.NeighborTable;
+import CellSociety.Neighbors.NeighborTopology;
+import CellSociety.Neighbors.Neighbors;
+import CellSociety.Neighbors.NeighborsSquare;
+import CellSociety.Neighbors.NeighborsTriangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times finding the neighbors of every cell of a grid: by constructing a NeighborsSquare/NeighborsTriangle
+ * per cell, by building a NeighborTable for the whole grid, and through Cell.findNeighbors(),
+ * which shares one table between all cells
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+    @Param({BenchmarkModels.SQUARE, BenchmarkModels.TRIANGLE})
+    public String shape;
+
+    @Param({"Finite", "Toroidal"})
+    public String edge;
+
+    @Param({"100", "500"})
+    public int size;
+
+    private Cell[][] myGrid;
+    private List<Integer> myNeighborIndexes;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        myGrid = new Cell[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                myGrid[i][j] = new CellGameOfLife(i, j, "Dead", new ArrayList<>());
+            }
+        }
+        myNeighborIndexes = BenchmarkModels.getNeighbors(shape);
+    }
+
+    @Benchmark
+    public void neighborsPerCell(Blackhole blackhole){
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                Neighbors neighbors = BenchmarkModels.SQUARE.equals(shape)
+                        ? new NeighborsSquare(i, j, myGrid)
+                        : new NeighborsTriangle(i, j, myGrid);
+                neighbors.initializeEdgeAndIndexes(edge, myNeighborIndexes);
+                blackhole.consume(neighbors.getNeighborsList());
+            }
+        }
+    }
+
+    @Benchmark
+    public NeighborTable neighborTable(){
+        return new NeighborTable(shape, edge, myNeighborIndexes, size, size);
+    }
+
+    /**
+     * Builds the shared table once, like a new grid of the same topology would, then points every cell at it
+     */
+    @Benchmark
+    public void cellFindNeighbors(){
+        NeighborTopology.clear();
+        for (Cell[] row : myGrid) {
+            for (Cell cell : row) {
+                cell.findNeighbors(myGrid, shape, edge, myNeighborIndexes);
+            }
+        }
+    }
+}
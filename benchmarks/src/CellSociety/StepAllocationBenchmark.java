@@ -0,0 +1,136 @@
+package CellSociety;
+
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps every rule-based model serially, to be run with the GC profiler (-prof gc): its gc.alloc.rate.norm is
+ * the number of bytes a steady-state generation allocates, which should be 0 for every model. The parameters
+ * are read from their ParameterBlock only when the UI changed them, so they add nothing either.
+ * checkAllocations() asserts the same without JMH, counting the bytes allocated with the ThreadMXBean that
+ * MetricsRegistry uses, both serially and on CHECK_THREADS threads, where the bytes of every thread that was
+ * alive during the whole measurement are summed, so those of the engine's pool are too; BenchmarkMain runs it
+ * with -checkAllocations and fails if any model allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class StepAllocationBenchmark {
+    @Param({"200"})
+    public int size;
+
+    @Param({EngineFactory.FIRE, EngineFactory.WATOR, EngineFactory.SEG, EngineFactory.PERC, EngineFactory.RPS})
+    public String simType;
+
+    //models checked by checkAllocations(), every model stepped by a Rule or the BitLifeEngine
+    static final List<String> MODELS = List.of(EngineFactory.GOL, EngineFactory.FIRE, EngineFactory.WATOR,
+            EngineFactory.SEG, EngineFactory.PERC, EngineFactory.RPS);
+    private static final int CHECK_SIZE = 200;
+    //threads of the parallel check, enough bands for a 200x200 grid to be split among them
+    private static final int CHECK_THREADS = 4;
+    //generations stepped before measuring, enough for the stepping code to be compiled
+    private static final int WARMUP_GENERATIONS = 3000;
+    private static final int MEASURED_GENERATIONS = 500;
+
+    private GridEngine myEngine;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        myEngine = BenchmarkModels.createEngine(simType, BenchmarkModels.SQUARE, "Toroidal", size, size);
+        myEngine.setThreadCount(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(){
+        myEngine.shutdown();
+    }
+
+    @Benchmark
+    public void step(){
+        myEngine.step();
+    }
+
+    /**
+     * Steps every model of MODELS after a warmup, serially and on CHECK_THREADS threads, and reports the bytes
+     * its steady-state generations allocate
+     * @param output stream the bytes per generation of every model are written to
+     * @return true if no model allocated anything, false otherwise or if allocations cannot be counted
+     */
+    static boolean checkAllocations(PrintStream output){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                        .isThreadAllocatedMemoryEnabled()){
+            output.println("This JVM cannot count the bytes a thread allocates.");
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        boolean isClean = true;
+        for(int threadCount : new int[]{1, CHECK_THREADS}){
+            for(String simType : MODELS){
+                long allocated = countAllocatedBytes(threads, simType, threadCount);
+                output.println(String.format("%s on %d thread(s): %.3f bytes/generation", simType, threadCount,
+                        (double) allocated / MEASURED_GENERATIONS));
+                if(allocated > 0){
+                    isClean = false;
+                }
+            }
+        }
+        return isClean;
+    }
+
+    //steps a model after a warmup and counts the bytes the threads allocate in the measured generations
+    private static long countAllocatedBytes(com.sun.management.ThreadMXBean threads, String simType,
+                                            int threadCount){
+        GridEngine engine = BenchmarkModels.createEngine(simType, BenchmarkModels.SQUARE, "Toroidal",
+                CHECK_SIZE, CHECK_SIZE);
+        engine.setThreadCount(threadCount);
+        for(int i = 0; i < WARMUP_GENERATIONS; i++){
+            engine.step();
+        }
+        //the pool's workers are started by the warmup; threads started or ended later are left out
+        long[] ids = threads.getAllThreadIds();
+        //what reading the counters itself allocates, if anything, is not charged to the model
+        long[] start = threads.getThreadAllocatedBytes(ids);
+        long overhead = sumAllocatedBytes(start, threads.getThreadAllocatedBytes(ids));
+        start = threads.getThreadAllocatedBytes(ids);
+        for(int i = 0; i < MEASURED_GENERATIONS; i++){
+            engine.step();
+        }
+        long allocated = sumAllocatedBytes(start, threads.getThreadAllocatedBytes(ids)) - overhead;
+        engine.shutdown();
+        return allocated;
+    }
+
+    //sums the bytes allocated between two readings by the threads alive at both, which read as -1 otherwise
+    private static long sumAllocatedBytes(long[] start, long[] end){
+        long total = 0;
+        for(int i = 0; i < start.length; i++){
+            if(start[i] >= 0 && end[i] >= 0){
+                total += end[i] - start[i];
+            }
+        }
+        return total;
+    }
+}
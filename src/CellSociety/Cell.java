@@ -1,9 +1,9 @@
 package CellSociety;
 //look into enum
 
-import CellSociety.Neighbors.Neighbors;
-import CellSociety.Neighbors.NeighborsSquare;
-import CellSociety.Neighbors.NeighborsTriangle;
+import CellSociety.Neighbors.NeighborList;
+import CellSociety.Neighbors.NeighborTable;
+import CellSociety.Neighbors.NeighborTopology;
 import javafx.scene.Scene;
 
 import java.util.ArrayList;
@@ -30,9 +30,6 @@ public abstract class Cell {
     protected Cell[][] myGrid;
     protected List<String> myStates;
 
-    private final String SQUARE = "Square";
-    private final String TRIANGLE = "Triangle";
-
     protected int myNumUserCalls;
 
     /**
@@ -91,35 +88,18 @@ public abstract class Cell {
 
     /**
      * Used to set the neighbors of the Cell.
+     * The neighbors are looked up in a NeighborTable shared by all cells of the grid,
+     * so only the first cell to call this resolves the grid's topology.
      * @param cell ArrayList of ArrayLists of Cells, makes up the grid of cells
+     * @param shapeType String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
      * @param neighborIndexes ArrayList of integers corresponding with neighbor indexes
      */
-    //Note: it will be set in each implementation so the concrete classes can choose if they want to call
-    //a method for 4 or 8 neighbors, or they can call another method entirely.
     public void findNeighbors(Cell[][] cell, String shapeType, String edgeType, List<Integer> neighborIndexes){
-        //System.out.println("Made it to find Neighbors");
         myGrid = cell;
-        switch(shapeType){
-            case SQUARE:
-                ////System.out.println("Made it to start of square shape");
-                NeighborsSquare squareNeighbors = new NeighborsSquare(myRow, myCol, myGrid);
-                ////System.out.println("Made it past constructing square neighbors");
-                squareNeighbors.initializeEdgeAndIndexes(edgeType, neighborIndexes);
-                ////System.out.println("Made it past initializing edges and indexes");
-                ////System.out.println("Trying to print Neighbors list size");
-                ////System.out.println(squareNeighbors.getNeighborsList().size());
-                myNeighbors =  squareNeighbors.getNeighborsList();
-                ////System.out.println("Made it to end of square shape");
-                return;
-            case TRIANGLE:
-                NeighborsTriangle triangleNeighbors = new NeighborsTriangle(myRow, myCol, myGrid);
-                triangleNeighbors.initializeEdgeAndIndexes(edgeType, neighborIndexes);
-                myNeighbors = triangleNeighbors.getNeighborsList();
-                ////System.out.println("Made it to triangle shape");
-                return;
-        }
-        //System.out.println(shapeType);
-        throw new IllegalArgumentException("Unknown Shape Type");
+        int cols = cell[0].length;
+        NeighborTable table = NeighborTopology.getTable(shapeType, edgeType, neighborIndexes, cell.length, cols);
+        myNeighbors = new NeighborList(myGrid, table, myRow * cols + myCol);
     }
 
     private boolean isSelf(int tempRow, int tempCol) {
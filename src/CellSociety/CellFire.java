@@ -1,7 +1,7 @@
 package CellSociety;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Carrie Hunner
@@ -14,7 +14,6 @@ public class CellFire extends Cell {
     private final String TREE = "Tree";
     private final String EMPTY = "Empty";
 
-    private Random myRand;
 
     private double myProbBurning;
 
@@ -29,7 +28,6 @@ public class CellFire extends Cell {
     CellFire(int row, int col, String initialState, ArrayList<Double> parameters){
         super(row, col, initialState, parameters);
         setParams();
-        myRand = new Random();
     }
 
     /**
@@ -72,7 +70,7 @@ public class CellFire extends Cell {
     //handles burning neighbors and setting next state of tree
     private void checkNeighborsAndBurning() {
         for(Cell c : myNeighbors){
-            if(c.getState().equals(BURNING) && myRand.nextFloat() < myProbBurning){
+            if(c.getState().equals(BURNING) && ThreadLocalRandom.current().nextFloat() < myProbBurning){
                 myNextState = BURNING;
                 break;
             }
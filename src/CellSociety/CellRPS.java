@@ -3,7 +3,7 @@ package CellSociety;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Carrie Hunner
@@ -15,7 +15,6 @@ public class CellRPS extends Cell implements Comparator<String> {
     private final String GREEN = "Green";
     private final String BLUE = "Blue";
 
-    private Random myRand;
     private ArrayList<Cell> myUneatenNeighbors;
     private Cell myNextLoc;
 
@@ -29,7 +28,6 @@ public class CellRPS extends Cell implements Comparator<String> {
      */
     CellRPS(int row, int col, String initialState, ArrayList<Double> parameters) {
         super(row, col, initialState, parameters);
-        myRand = new Random();
         myUneatenNeighbors = new ArrayList<>();
     }
 
@@ -55,8 +53,7 @@ public class CellRPS extends Cell implements Comparator<String> {
         setUneatenNeighbors();
 
         if(!myUneatenNeighbors.isEmpty()) {
-            System.out.println("Uneaten neighbor size: " + myUneatenNeighbors.size());
-            int neighborIndex = myRand.nextInt(myUneatenNeighbors.size());
+            int neighborIndex = ThreadLocalRandom.current().nextInt(myUneatenNeighbors.size());
             Cell cellNeighbor = myUneatenNeighbors.get(neighborIndex);
             String neighborState = myUneatenNeighbors.get(neighborIndex).getState();
 
@@ -83,6 +80,7 @@ public class CellRPS extends Cell implements Comparator<String> {
 
     //determines what neighbors
     private void setUneatenNeighbors(){
+        myUneatenNeighbors.clear();
         for(Cell c : myNeighbors){
             if(c.myNextState.equals("") || c.myNextState.equals(WHITE)){
                 myUneatenNeighbors.add(c);
@@ -75,7 +75,6 @@ public class CellSegregation extends Cell {
             findAndSetNewLocation();
             //myNextState = EMPTY;
         }
-        System.out.println();
     }
 
     //indexes through the grid to find the next empty and unclaimed location
@@ -0,0 +1,263 @@
+package CellSociety.CellShapes;
+
+/**
+ * Pixel coordinates of the cells of a Square or Triangle grid, shared by everything that draws the grid.
+ * Squares are laid out in rows and columns of cellWidth x cellHeight; triangles of the same size alternate
+ * between pointing up and down, each column shifted by half a cell width, and every other row mirrored.
+ * Corners are listed as x, y pairs in the order the UI's Polygons expect.
+ */
+public class CellGeometry {
+    public static final String SQUARE = "Square";
+    public static final String TRIANGLE = "Triangle";
+
+    private final static int NUM_SQUARE_COORDINATES = 8;
+    private final static int NUM_TRIANGLE_COORDINATES = 6;
+
+    private final boolean isSquare;
+    private final int myRows;
+    private final int myCols;
+    private final int myCellWidth;
+    private final int myCellHeight;
+    private final int myNumCoordinates;
+
+    private int[] myStartingCoordinates;
+    private int[] myStartingCoordinatesUpEven;
+    private int[] myStartingCoordinatesDownEven;
+    private int[] myStartingCoordinatesUpOdd;
+    private int[] myStartingCoordinatesDownOdd;
+
+    /**
+     * @param shape shape of the cells, either Square or Triangle
+     * @param rows number of cell rows
+     * @param cols number of cells per row
+     * @param cellWidth width of a cell in pixels
+     * @param cellHeight height of a cell in pixels
+     */
+    public CellGeometry(String shape, int rows, int cols, int cellWidth, int cellHeight){
+        myRows = rows;
+        myCols = cols;
+        myCellWidth = cellWidth;
+        myCellHeight = cellHeight;
+        switch (shape){
+            case SQUARE:
+                isSquare = true;
+                myNumCoordinates = NUM_SQUARE_COORDINATES;
+                myStartingCoordinates = new int[]{
+                        0, 0,
+                        0, cellHeight,
+                        cellWidth, cellHeight,
+                        cellWidth, 0};
+                return;
+            case TRIANGLE:
+                isSquare = false;
+                myNumCoordinates = NUM_TRIANGLE_COORDINATES;
+                myStartingCoordinatesUpEven = new int[]{
+                        cellWidth/2, 0,
+                        0, cellHeight,
+                        cellWidth, cellHeight};
+                myStartingCoordinatesDownEven = new int[]{
+                        cellWidth/2, 0,
+                        cellWidth, cellHeight,
+                        cellWidth + cellWidth/2, 0};
+                myStartingCoordinatesUpOdd = new int[]{
+                        cellWidth, 0,
+                        cellWidth/2, cellHeight,
+                        cellWidth + cellWidth/2, cellHeight};
+                myStartingCoordinatesDownOdd = new int[]{
+                        0, 0,
+                        cellWidth/2, cellHeight,
+                        cellWidth, 0};
+                return;
+        }
+        throw new IllegalArgumentException("Unknown Shape Type");
+    }
+
+    /**
+     * @return number of x and y values describing one cell
+     */
+    public int getNumCoordinates(){
+        return myNumCoordinates;
+    }
+
+    /**
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return new array of the x, y pairs of the cell's corners
+     */
+    public double[] getCoordinates(int row, int col){
+        double[] coordinates = new double[myNumCoordinates];
+        getCoordinates(row, col, coordinates);
+        return coordinates;
+    }
+
+    /**
+     * Writes the x, y pairs of the cell's corners into the given array, so callers can reuse it
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @param coordinates array of at least getNumCoordinates() entries
+     */
+    public void getCoordinates(int row, int col, double[] coordinates){
+        for (int i = 0; i < myNumCoordinates; i++) {
+            if (i % 2 == 0){ //assign x coordinate
+                coordinates[i] = isSquare ? calcXCoordinateSquare(col, i) : calcXCoordinateTriangle(col, row, i);
+            }
+            else {
+                coordinates[i] = isSquare ? calcYCoordinateSquare(row, i) : calcYCoordinateTriangle(col, row, i);
+            }
+        }
+    }
+
+    /**
+     * Maps a point back to the cell drawn there without searching the grid: the row follows from y,
+     * and only the two or three triangles of that row overlapping x are tested
+     * @param x x coordinate in pixels
+     * @param y y coordinate in pixels
+     * @return flat index (row * cols + col) of the cell containing the point, or -1 if there is none
+     */
+    public int findCell(double x, double y){
+        if (x < 0 || y < 0 || myCellWidth <= 0 || myCellHeight <= 0){
+            return -1;
+        }
+        int row = (int) (y / myCellHeight);
+        if (row >= myRows){
+            return -1;
+        }
+        if (isSquare){
+            int col = (int) (x / myCellWidth);
+            return col < myCols ? row * myCols + col : -1;
+        }
+        int approxCol = (int) (2 * x / myCellWidth);
+        double[] coordinates = new double[myNumCoordinates];
+        for (int col = Math.max(0, approxCol - 2); col <= Math.min(myCols - 1, approxCol + 1); col++){
+            getCoordinates(row, col, coordinates);
+            if (contains(coordinates, x, y)){
+                return row * myCols + col;
+            }
+        }
+        return -1;
+    }
+
+    //true if the point lies inside the convex polygon or on its edges
+    private boolean contains(double[] coordinates, double x, double y){
+        boolean hasPositive = false;
+        boolean hasNegative = false;
+        for (int i = 0; i < myNumCoordinates; i += 2){
+            int j = (i + 2) % myNumCoordinates;
+            double cross = (coordinates[j] - coordinates[i]) * (y - coordinates[i + 1])
+                    - (coordinates[j + 1] - coordinates[i + 1]) * (x - coordinates[i]);
+            hasPositive |= cross > 0;
+            hasNegative |= cross < 0;
+        }
+        return !(hasPositive && hasNegative);
+    }
+
+    /**
+     * @return width in pixels of the area covered by the grid
+     */
+    public int getWidth(){
+        if (isSquare){
+            return myCols * myCellWidth;
+        }
+        int width = 0;
+        double[] coordinates = new double[myNumCoordinates];
+        for (int row = 0; row < Math.min(2, myRows); row++){
+            getCoordinates(row, myCols - 1, coordinates);
+            for (int i = 0; i < myNumCoordinates; i += 2){
+                width = Math.max(width, (int) coordinates[i]);
+            }
+        }
+        return width;
+    }
+
+    /**
+     * @return height in pixels of the area covered by the grid
+     */
+    public int getHeight(){
+        return myRows * myCellHeight;
+    }
+
+    /**
+     * @return width of a cell in pixels
+     */
+    public int getCellWidth(){
+        return myCellWidth;
+    }
+
+    /**
+     * @return height of a cell in pixels
+     */
+    public int getCellHeight(){
+        return myCellHeight;
+    }
+
+    /**
+     * @return true if the cells are squares
+     */
+    public boolean isSquare(){
+        return isSquare;
+    }
+
+    /**
+     * @return number of cell rows
+     */
+    public int getRows(){
+        return myRows;
+    }
+
+    /**
+     * @return number of cells per row
+     */
+    public int getCols(){
+        return myCols;
+    }
+
+    private int calcXCoordinateTriangle(int col, int row, int i){
+        int x;
+        if (row % 2 == 0){
+            if (col % 2 == 0){
+                x = myStartingCoordinatesUpEven[i] + col * myCellWidth/2;
+            }
+            else {
+                x = myStartingCoordinatesDownEven[i] + col * myCellWidth/2 + myCellWidth/2 - myCellWidth;
+            }
+        }
+        else {
+            if (col % 2 == 0){
+                x = myStartingCoordinatesDownOdd[i] + col * myCellWidth/2;
+            }
+            else {
+                x = myStartingCoordinatesUpOdd[i] + col * myCellWidth/2 + myCellWidth/2 - myCellWidth;
+            }
+        }
+        return x;
+    }
+
+    private int calcXCoordinateSquare(int col, int i){
+        return myStartingCoordinates[i] + col * myCellWidth;
+    }
+
+    private int calcYCoordinateTriangle(int col, int row, int i) {
+        int y;
+        if (row % 2 == 0){
+            if (col % 2 == 0){
+                y = myStartingCoordinatesUpEven[i] + row * myCellHeight;
+            }
+            else {
+                y = myStartingCoordinatesDownEven[i] + row * myCellHeight;
+            }
+        }
+        else {
+            if (col % 2 == 0){
+                y = myStartingCoordinatesDownOdd[i] + row * myCellHeight;
+            }
+            else {
+                y = myStartingCoordinatesUpOdd[i] + row * myCellHeight;
+            }
+        }
+        return y;
+    }
+
+    private int calcYCoordinateSquare(int row, int i) {
+        return myStartingCoordinates[i] + row * myCellHeight;
+    }
+}
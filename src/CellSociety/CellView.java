@@ -0,0 +1,59 @@
+package CellSociety;
+
+/**
+ * A Cell that holds no state of its own and only presents one cell of the grid of the Simulation's current
+ * GridEngine, so the same CellViews keep serving the UI when a simulation of the same size replaces it.
+ * Simulation creates these for the UI, which keeps talking to Cells; the rules themselves
+ * run in the engine, so findNextState() and updateState() have nothing to do.
+ */
+class CellView extends Cell {
+    private Simulation mySimulation;
+
+    /**
+     * @param row int index of the row of the cell in the engine's grid
+     * @param col int index of the column of the cell in the engine's grid
+     * @param simulation Simulation whose GridEngine holds the cell's state
+     */
+    CellView(int row, int col, Simulation simulation){
+        super(row, col, "", null);
+        mySimulation = simulation;
+    }
+
+    //states are kept in the engine's StateDictionary
+    @Override
+    protected void initializeStatesList() {
+        return;
+    }
+
+    /**
+     * The engine determines the next states of the whole grid
+     */
+    @Override
+    public void findNextState() {
+        return;
+    }
+
+    /**
+     * The engine updates the states of the whole grid
+     */
+    @Override
+    public void updateState(){
+        return;
+    }
+
+    /**
+     * @return String corresponding to the cell's current state in the engine
+     */
+    @Override
+    public String getState(){
+        return mySimulation.getEngine().getState(myRow, myCol);
+    }
+
+    /**
+     * Switches the cell's state in the engine to the next valid state
+     */
+    @Override
+    public void userSwitchState(){
+        mySimulation.getEngine().userSwitchState(myRow, myCol);
+    }
+}
@@ -2,7 +2,7 @@ package CellSociety;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Carrie Hunner
@@ -24,7 +24,6 @@ public class CellWATOR extends Cell {
     private double myNextSharkEnergy;
 
     private double myTurnsSurvived;
-    private Random myRand;
     private List<CellWATOR> myEmptyNeighbors;
     private List<CellWATOR> myFishNeighbors;
     private CellWATOR myNextLocCell;
@@ -42,7 +41,6 @@ public class CellWATOR extends Cell {
     CellWATOR(int row, int col, String initialState, ArrayList<Double> parameters){
         super(row, col, initialState, parameters);
 
-        myRand = new Random();
         myEmptyNeighbors = new ArrayList<>();
         myFishNeighbors = new ArrayList<>();
 
@@ -185,7 +183,7 @@ public class CellWATOR extends Cell {
 
     private void moveSharkToEmptyNeighbor() {
         int nextLocationIndex;
-        nextLocationIndex = myRand.nextInt(myEmptyNeighbors.size());
+        nextLocationIndex = ThreadLocalRandom.current().nextInt(myEmptyNeighbors.size());
         CellWATOR nextCell = myEmptyNeighbors.get(nextLocationIndex);
         //System.out.println("\tAbove wants to move to empty row: " + nextCell.myRow + " Col: " + nextCell.myCol);
         nextCell.setNextState(SHARK);
@@ -196,7 +194,7 @@ public class CellWATOR extends Cell {
 
     private void eatFish() {
         int nextLocationIndex;
-        nextLocationIndex = myRand.nextInt(myFishNeighbors.size());
+        nextLocationIndex = ThreadLocalRandom.current().nextInt(myFishNeighbors.size());
         CellWATOR nextCell = myFishNeighbors.get(nextLocationIndex);
         //System.out.println("\tAbove going to eat Row: " + nextCell.myRow + " Col: " + nextCell.myCol);
         ////System.out.println("\tShark Energy: " + mySharkEnergy);
@@ -230,7 +228,7 @@ public class CellWATOR extends Cell {
     //moves fish to empty spot
     private void moveFish() {
         int numEmptyNeighbors = myEmptyNeighbors.size();
-        int nextLocationIndex = myRand.nextInt(numEmptyNeighbors);
+        int nextLocationIndex = ThreadLocalRandom.current().nextInt(numEmptyNeighbors);
         CellWATOR nextCell = myEmptyNeighbors.get(nextLocationIndex);
         ////System.out.println("\tAbove wants to move to row: " + nextCell.myRow + " Col: " + nextCell.myCol);
         myNextLocCell = nextCell;
@@ -0,0 +1,177 @@
+package CellSociety;
+
+import CellSociety.Engine.GridSnapshot;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes periodic GridSnapshots of a running simulation so that a long run survives the JVM dying.
+ * At a generation boundary the stepping thread only copies the planes into one of two reusable buffers;
+ * the file is written on a background thread, so disk I/O never blocks stepping. If both buffers are still
+ * being written, the checkpoint is put off to the next generation rather than waited for.
+ *
+ * Checkpoints are written to a temporary file and then renamed, so a crash never leaves a partial one behind,
+ * and only the most recent ones of each simulation are kept. findLatest() finds the checkpoint to resume from.
+ * It has no JavaFX dependency so that Simulation and the HeadlessRunner can share it.
+ */
+public class Checkpointer {
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int NUM_BUFFERS = 2;
+
+    private final Path myFolder;
+    private final String myName;
+    private final long myGenerationInterval;
+    private final long myMillisInterval;
+    private final int myKeep;
+    private final ExecutorService myWriter;
+    private final GridSnapshot[] myBuffers;
+    private final Future<?>[] myWrites;
+
+    private long myLastGeneration;
+    private long myLastMillis;
+    private volatile IOException myLastError;
+
+    /**
+     * @param folder folder the checkpoints are written to, created if needed
+     * @param name name of the simulation, used as the prefix of its checkpoint files
+     * @param generationInterval number of generations between two checkpoints, or 0 to not count generations
+     * @param millisInterval number of milliseconds between two checkpoints, or 0 to not count time
+     * @param keep number of most recent checkpoints of the simulation to keep
+     * @param generation generation the simulation starts at
+     */
+    public Checkpointer(Path folder, String name, long generationInterval, long millisInterval, int keep,
+                        long generation){
+        myFolder = folder;
+        myName = name.replaceAll("[^A-Za-z0-9]", "_");
+        myGenerationInterval = generationInterval;
+        myMillisInterval = millisInterval;
+        myKeep = Math.max(1, keep);
+        myBuffers = new GridSnapshot[NUM_BUFFERS];
+        myWrites = new Future<?>[NUM_BUFFERS];
+        myLastGeneration = generation;
+        myLastMillis = System.currentTimeMillis();
+        myWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param generation generation the simulation has just completed
+     * @return true if a checkpoint is due at this generation
+     */
+    public boolean isDue(long generation){
+        return (myGenerationInterval > 0 && generation - myLastGeneration >= myGenerationInterval)
+                || (myMillisInterval > 0 && System.currentTimeMillis() - myLastMillis >= myMillisInterval);
+    }
+
+    /**
+     * Copies the snapshot's planes and writes them on the background thread.
+     * Must be called at a generation boundary, between two steps of the engine the snapshot was taken of.
+     * @param snapshot snapshot of the current generation, whose planes may still be the engine's
+     * @return true if the checkpoint was scheduled, false if it stays due because both buffers are busy
+     */
+    public boolean checkpoint(GridSnapshot snapshot){
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            if (myWrites[i] == null || myWrites[i].isDone()) {
+                myLastGeneration = snapshot.getGeneration();
+                myLastMillis = System.currentTimeMillis();
+                GridSnapshot copy = snapshot.copy(myBuffers[i]);
+                myBuffers[i] = copy;
+                myWrites[i] = myWriter.submit(() -> write(copy));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //writes the checkpoint under a temporary name, renames it and deletes the oldest ones beyond the kept number
+    private void write(GridSnapshot snapshot){
+        try {
+            Files.createDirectories(myFolder);
+            Path file = myFolder.resolve(String.format("%s-%012d%s", myName, snapshot.getGeneration(),
+                    GridSnapshot.EXTENSION));
+            Path temp = myFolder.resolve(file.getFileName() + TEMP_EXTENSION);
+            snapshot.write(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            List<Path> checkpoints = list(myFolder, myName + "-*" + GridSnapshot.EXTENSION);
+            //zero-padded generations sort by name
+            Collections.sort(checkpoints);
+            for (int i = 0; i < checkpoints.size() - myKeep; i++) {
+                Files.deleteIfExists(checkpoints.get(i));
+            }
+        } catch (IOException e) {
+            myLastError = e;
+        }
+    }
+
+    /**
+     * @return the error of the last checkpoint that could not be written, or null if there was none
+     */
+    public IOException getLastError(){
+        return myLastError;
+    }
+
+    /**
+     * Stops the background thread once the scheduled checkpoints are written, without waiting for them
+     */
+    public void shutdown(){
+        myWriter.shutdown();
+    }
+
+    /**
+     * Waits for the scheduled checkpoints to be written, e.g. before the program exits
+     * @param millis maximum number of milliseconds to wait
+     * @return true if every scheduled checkpoint was written
+     */
+    public boolean awaitWrites(long millis) throws InterruptedException{
+        myWriter.shutdown();
+        return myWriter.awaitTermination(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param folder folder the checkpoints are written to
+     * @return the most recently written checkpoint of any simulation in the folder, or null if there is none
+     */
+    public static Path findLatest(Path folder){
+        Path latest = null;
+        long latestMillis = Long.MIN_VALUE;
+        try {
+            for (Path checkpoint : list(folder, "*" + GridSnapshot.EXTENSION)) {
+                long millis = Files.getLastModifiedTime(checkpoint).toMillis();
+                if (millis > latestMillis) {
+                    latest = checkpoint;
+                    latestMillis = millis;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return latest;
+    }
+
+    private static List<Path> list(Path folder, String glob) throws IOException{
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(folder)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, glob)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,59 @@
+package CellSociety;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed XML configuration files, kept by path together with the file's last modification time and length,
+ * so that resetting a simulation or switching back to a model does not parse its file again. A file that
+ * changed on disk since it was parsed is parsed anew. The parsers are shared, so their results must only be
+ * read, e.g. the parameters are copied into a new ParameterBlock for every run.
+ * Only the most recently used files are kept; the neighbor tables of their grids are cached by NeighborTopology.
+ */
+class ConfigCache {
+    private static final int CAPACITY = 16;
+
+    private final Map<String, Entry> myEntries;
+
+
+    ConfigCache(){
+        //access order, so that the least recently used file is the first one
+        myEntries = new LinkedHashMap<>(CAPACITY, 0.75f, true);
+    }
+
+
+    /**
+     * @param file XML configuration file
+     * @return parser of the file, parsed now if it is not cached or has changed since
+     * @throws Exception any exception of the XMLParser constructor
+     */
+    XMLParser parse(File file) throws Exception {
+        String path = file.getAbsolutePath();
+        long modified = file.lastModified();
+        long length = file.length();
+        Entry entry = myEntries.get(path);
+        if (entry != null && entry.myModified == modified && entry.myLength == length) {
+            return entry.myParser;
+        }
+        XMLParser parser = new XMLParser(file);
+        myEntries.put(path, new Entry(parser, modified, length));
+        if (myEntries.size() > CAPACITY) {
+            myEntries.remove(myEntries.keySet().iterator().next());
+        }
+        return parser;
+    }
+
+
+    private static class Entry {
+        private final XMLParser myParser;
+        private final long myModified;
+        private final long myLength;
+
+        Entry(XMLParser parser, long modified, long length){
+            myParser = parser;
+            myModified = modified;
+            myLength = length;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package CellSociety.Engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GridEngine for Game of Life on square cells that keeps the grid packed 64 cells to a long.
+ * Every neighbor direction is a shifted copy of the rows, and the shifted words are added with a bit-sliced
+ * counter, so a generation updates 64 cells with a few dozen bitwise operations instead of looking up
+ * every cell's neighbors. It needs no NeighborTable, so even very large grids take a bit per cell.
+ * The StateGrid is kept in sync after every generation, with the same changed cells and population counts
+ * as stepping RuleGameOfLife on the grid.
+ *
+ * On a toroidal grid whose sides are the same power of two, setHashLife(true) makes advance() jump
+ * ahead with HashLife, skipping huge numbers of generations at once on grids with repetitive patterns.
+ * Chaotic regions make HashLife slower than stepping; it pays off once the grid has settled into still lifes,
+ * oscillators and gliders.
+ */
+public class BitLifeEngine extends GridEngine {
+    private static final String SQUARE = "Square";
+    private static final String FINITE = "Finite";
+    private static final String TOROIDAL = "Toroidal";
+    private static final String DEAD = "Dead";
+    private static final String ALIVE = "Alive";
+
+    //row and column offsets of every neighbor index of a square cell, numbered as in NeighborTable
+    private static final int[] SQUARE_ROWS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SQUARE_COLS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int myRows;
+    private final int myCols;
+    private final int myWords;
+    private final boolean isToroidal;
+    private final byte myDead;
+    private final byte myAlive;
+    private final int[] myRowOffsets;
+    private final int[] myColOffsets;
+    //bits of the columns within the last word of a row
+    private final long myLastMask;
+
+    //bit col % 64 of word row * myWords + col / 64 is set if the cell is alive
+    private long[] myBits;
+    private long[] myNextBits;
+    //a neighbor row shifted one column west, not shifted and shifted one column east
+    private final long[][] myShifted;
+    //neighbor counts of a row as four bit planes, counting up to eight neighbors
+    private final long[][] mySums;
+
+    private HashLife myHashLife;
+    private boolean isHashLife;
+
+    /**
+     * @param grid StateGrid holding the initial Dead and Alive states
+     * @param states StateDictionary containing the Dead and Alive states
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighborIndexes List of the indexes corresponding to the desired neighbors of a square
+     */
+    public BitLifeEngine(StateGrid grid, StateDictionary states, String edgeType, List<Integer> neighborIndexes){
+        super(grid, null, states, null, false);
+        if(!FINITE.equals(edgeType) && !TOROIDAL.equals(edgeType)){
+            throw new IllegalArgumentException("Not a valid edgetype");
+        }
+        myRows = grid.getRows();
+        myCols = grid.getCols();
+        myWords = (myCols + Long.SIZE - 1) / Long.SIZE;
+        isToroidal = TOROIDAL.equals(edgeType);
+        myDead = states.codeOf(DEAD);
+        myAlive = states.codeOf(ALIVE);
+        int[] indexes = neighborIndexes.stream().mapToInt(Integer::intValue)
+                .filter(index -> index >= 0 && index < SQUARE_ROWS.length).toArray();
+        myRowOffsets = new int[indexes.length];
+        myColOffsets = new int[indexes.length];
+        for(int k = 0; k < indexes.length; k++){
+            myRowOffsets[k] = SQUARE_ROWS[indexes[k]];
+            myColOffsets[k] = SQUARE_COLS[indexes[k]];
+        }
+        int lastBits = myCols % Long.SIZE;
+        myLastMask = lastBits == 0 ? -1L : (1L << lastBits) - 1;
+        myBits = new long[myRows * myWords];
+        myNextBits = new long[myRows * myWords];
+        myShifted = new long[3][myWords];
+        mySums = new long[4][myWords];
+        loadBits();
+    }
+
+    /**
+     * @param cellShape String of the cell shape (Square, Triangle)
+     * @return true if the cells are squares, whose neighbors this engine can count
+     */
+    public static boolean supports(String cellShape){
+        return SQUARE.equals(cellShape);
+    }
+
+    /**
+     * Updates all cells' states to the next generation
+     */
+    @Override
+    public void step(){
+        startFindPhase();
+        for(int row = 0; row < myRows; row++){
+            stepRow(row);
+        }
+        endFindPhase();
+        long[] previous = myBits;
+        myBits = myNextBits;
+        myNextBits = previous;
+        syncGrid(previous);
+        if(myHashLife != null){
+            myHashLife.reset();
+        }
+        addGenerations(1);
+        endCommitPhase();
+    }
+
+    /**
+     * Advances the grid by a number of generations, with HashLife if it is enabled and supported
+     * @param generations number of generations to advance
+     */
+    @Override
+    public void advance(long generations){
+        if(!isHashLife || !isHashLifeSupported() || generations <= 0){
+            super.advance(generations);
+            return;
+        }
+        if(myHashLife == null){
+            myHashLife = new HashLife(myRowOffsets, myColOffsets);
+        }
+        long[] previous = myBits;
+        myBits = myHashLife.advance(myBits, myRows, myWords, generations);
+        syncGrid(previous);
+        addGenerations(generations);
+    }
+
+    /**
+     * @param hashLife true to advance() with HashLife when the grid supports it
+     */
+    public void setHashLife(boolean hashLife){
+        isHashLife = hashLife;
+    }
+
+    /**
+     * @return true if the grid is toroidal and its sides are the same power of two, as HashLife requires
+     */
+    public boolean isHashLifeSupported(){
+        return isToroidal && myRows == myCols && Integer.bitCount(myRows) == 1;
+    }
+
+    /**
+     * Switches the current state of a cell to the state with the next code, wrapping around.
+     * @param row row index of the cell
+     * @param col column index of the cell
+     */
+    @Override
+    public void userSwitchState(int row, int col){
+        super.userSwitchState(row, col);
+        setBit(row, col, getGrid().getState(getGrid().index(row, col)) == myAlive);
+        if(myHashLife != null){
+            myHashLife.reset();
+        }
+    }
+
+    /**
+     * Recounts the population and reloads the packed grid from the StateGrid.
+     * Needed after states were set directly on the grid rather than through userSwitchState().
+     */
+    @Override
+    public void invalidate(){
+        super.invalidate();
+        //the superclass constructor calls this before the packed grid exists
+        if(myBits != null){
+            loadBits();
+        }
+    }
+
+    //sums the shifted neighbor rows of a row in bit slices and applies birth on 3, survival on 2 or 3
+    private void stepRow(int row){
+        long[] sum0 = mySums[0];
+        long[] sum1 = mySums[1];
+        long[] sum2 = mySums[2];
+        long[] sum3 = mySums[3];
+        for(long[] sum : mySums){
+            Arrays.fill(sum, 0);
+        }
+        for(int dRow = -1; dRow <= 1; dRow++){
+            if(!hasOffset(dRow) || !shiftRow(row + dRow)){
+                continue;
+            }
+            for(int k = 0; k < myRowOffsets.length; k++){
+                if(myRowOffsets[k] != dRow){
+                    continue;
+                }
+                long[] shifted = myShifted[myColOffsets[k] + 1];
+                for(int i = 0; i < myWords; i++){
+                    long x = shifted[i];
+                    long carry0 = sum0[i] & x;
+                    sum0[i] ^= x;
+                    long carry1 = sum1[i] & carry0;
+                    sum1[i] ^= carry0;
+                    long carry2 = sum2[i] & carry1;
+                    sum2[i] ^= carry1;
+                    sum3[i] |= carry2;
+                }
+            }
+        }
+        int start = row * myWords;
+        for(int i = 0; i < myWords; i++){
+            long next = sum1[i] & ~sum2[i] & ~sum3[i] & (sum0[i] | myBits[start + i]);
+            myNextBits[start + i] = i == myWords - 1 ? next & myLastMask : next;
+        }
+    }
+
+    private boolean hasOffset(int dRow){
+        for(int offset : myRowOffsets){
+            if(offset == dRow){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //fills the west, centre and east copies of a row, returning false if the row is off a finite grid
+    private boolean shiftRow(int row){
+        if(row < 0 || row >= myRows){
+            if(!isToroidal){
+                return false;
+            }
+            row = Math.floorMod(row, myRows);
+        }
+        int start = row * myWords;
+        long[] west = myShifted[0];
+        long[] centre = myShifted[1];
+        long[] east = myShifted[2];
+        for(int i = 0; i < myWords; i++){
+            long word = myBits[start + i];
+            long previous = i > 0 ? myBits[start + i - 1] : 0;
+            long next = i < myWords - 1 ? myBits[start + i + 1] : 0;
+            //bit c of the west copy holds column c - 1, bit c of the east copy holds column c + 1
+            west[i] = (word << 1) | (previous >>> (Long.SIZE - 1));
+            centre[i] = word;
+            east[i] = (word >>> 1) | (next << (Long.SIZE - 1));
+        }
+        west[myWords - 1] &= myLastMask;
+        if(isToroidal){
+            int last = myCols - 1;
+            west[0] |= (myBits[start + last / Long.SIZE] >>> (last % Long.SIZE)) & 1;
+            east[myWords - 1] |= (myBits[start] & 1) << (last % Long.SIZE);
+        }
+        return true;
+    }
+
+    //copies the states of the cells whose bit changed into the StateGrid, recording the changes
+    private void syncGrid(long[] previous){
+        startChanges();
+        for(int row = 0; row < myRows; row++){
+            for(int i = 0; i < myWords; i++){
+                int word = row * myWords + i;
+                long diff = previous[word] ^ myBits[word];
+                while(diff != 0){
+                    int bit = Long.numberOfTrailingZeros(diff);
+                    diff &= diff - 1;
+                    boolean isAlive = (myBits[word] >>> bit & 1) != 0;
+                    recordChange(row * myCols + i * Long.SIZE + bit, isAlive ? myAlive : myDead);
+                }
+            }
+        }
+    }
+
+    //packs the StateGrid's Alive cells into bits
+    private void loadBits(){
+        StateGrid grid = getGrid();
+        for(int row = 0; row < myRows; row++){
+            for(int col = 0; col < myCols; col++){
+                setBit(row, col, grid.getState(grid.index(row, col)) == myAlive);
+            }
+        }
+        if(myHashLife != null){
+            myHashLife.reset();
+        }
+    }
+
+    private void setBit(int row, int col, boolean isAlive){
+        int word = row * myWords + col / Long.SIZE;
+        long bit = 1L << (col % Long.SIZE);
+        myBits[word] = isAlive ? myBits[word] | bit : myBits[word] & ~bit;
+    }
+}
@@ -0,0 +1,89 @@
+package CellSociety.Engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random numbers of a simulation, derived from its seed by hashing instead of being drawn one after the
+ * other from a shared generator. Every number is a function of the seed, the generation, the cell and the
+ * number of the draw within that cell, mixed with the SplitMix64 finalizer that SplittableRandom uses.
+ * So a run is reproduced exactly by its seed no matter how many threads find the next states, in which
+ * order the cells are visited, or whether it was resumed from a GridSnapshot, and drawing a number
+ * neither allocates nor contends on a shared seed.
+ */
+public final class CellRandom {
+    //generation key of the draws of the initial grid, before the first generation
+    public static final long INITIAL_GRID = -1;
+    //odd constant of SplittableRandom spreading consecutive keys over the 64 bits
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+    private final long mySeed;
+    private long myGenerationSeed;
+
+    /**
+     * @param seed seed of the simulation
+     */
+    public CellRandom(long seed){
+        mySeed = seed;
+        setGeneration(INITIAL_GRID);
+    }
+
+    /**
+     * @return a seed for simulations that do not specify one, different every time
+     */
+    public static long newSeed(){
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * @return seed of the simulation
+     */
+    public long getSeed(){
+        return mySeed;
+    }
+
+    /**
+     * Selects the numbers of a generation; called before its next states are found
+     * @param generation number of the generation, or INITIAL_GRID
+     */
+    public void setGeneration(long generation){
+        myGenerationSeed = mix(mySeed + mix(generation * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @param cell flat index of the cell drawing the number
+     * @param draw number of earlier draws of the cell in this generation
+     * @return 64 random bits
+     */
+    public long nextLong(int cell, int draw){
+        //distinct (cell, draw) keys give distinct inputs, as the gamma is odd and mix() is a bijection
+        return mix(myGenerationSeed + ((long) cell << Integer.SIZE | draw) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param cell flat index of the cell drawing the number
+     * @param draw number of earlier draws of the cell in this generation
+     * @return random float between 0 (inclusive) and 1 (exclusive)
+     */
+    public float nextFloat(int cell, int draw){
+        return (nextLong(cell, draw) >>> (Long.SIZE - 24)) * FLOAT_UNIT;
+    }
+
+    /**
+     * @param cell flat index of the cell drawing the number
+     * @param draw number of earlier draws of the cell in this generation
+     * @param bound positive upper bound
+     * @return random int between 0 (inclusive) and bound (exclusive)
+     */
+    public int nextInt(int cell, int draw, int bound){
+        //scales 31 random bits to the bound, which is unbiased enough for the small bounds of rules
+        return (int) (((nextLong(cell, draw) >>> (Long.SIZE - 31)) * bound) >>> 31);
+    }
+
+    //finalizer of SplitMix64 (variant 13 of Stafford's mixers)
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,82 @@
+package CellSociety.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Set of flat cell indexes of a grid that adds, removes, tests and picks cells by position in constant time.
+ * The members are kept densely in an array, and every cell remembers its slot in that array, so removing a
+ * cell moves the last member into its slot. The order of the members therefore depends on the order of the
+ * changes, which keeps picks reproducible as long as the changes are.
+ */
+final class CellSet {
+    private static final int ABSENT = -1;
+
+    private final int[] myMembers;
+    private final int[] mySlots;
+    private int mySize;
+
+    /**
+     * @param capacity number of cells of the grid
+     */
+    CellSet(int capacity){
+        myMembers = new int[capacity];
+        mySlots = new int[capacity];
+        clear();
+    }
+
+    /**
+     * @param cell flat index of the cell, added unless it is a member already
+     */
+    void add(int cell){
+        if(mySlots[cell] != ABSENT){
+            return;
+        }
+        mySlots[cell] = mySize;
+        myMembers[mySize++] = cell;
+    }
+
+    /**
+     * @param cell flat index of the cell, removed if it is a member
+     */
+    void remove(int cell){
+        int slot = mySlots[cell];
+        if(slot == ABSENT){
+            return;
+        }
+        int last = myMembers[--mySize];
+        myMembers[slot] = last;
+        mySlots[last] = slot;
+        mySlots[cell] = ABSENT;
+    }
+
+    /**
+     * @param cell flat index of the cell
+     * @return true if the cell is a member
+     */
+    boolean contains(int cell){
+        return mySlots[cell] != ABSENT;
+    }
+
+    /**
+     * @param slot position between 0 (inclusive) and size() (exclusive), e.g. a random one
+     * @return the member at the position
+     */
+    int get(int slot){
+        return myMembers[slot];
+    }
+
+    /**
+     * @return number of members
+     */
+    int size(){
+        return mySize;
+    }
+
+    /**
+     * Removes every member
+     */
+    void clear(){
+        Arrays.fill(mySlots, ABSENT);
+        mySize = 0;
+    }
+}
@@ -0,0 +1,149 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+import CellSociety.Neighbors.NeighborTopology;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the GridEngine for a simulation model from the information parsed out of its XML file.
+ * Adding a new simulation model means adding a Rule implementation and a case statement here.
+ */
+public class EngineFactory {
+    public static final String GOL = "Game of Life";
+    public static final String WATOR = "WaTor";
+    public static final String FIRE = "Fire";
+    public static final String SEG = "Segregation";
+    public static final String PERC = "Percolation";
+    public static final String RPS = "Rock Paper Scissors";
+
+    private EngineFactory(){
+    }
+
+    /**
+     * @param simType String of the simulation model (the Type tag of the XML file)
+     * @param cellShape String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighborIndexes List of the indexes corresponding to the desired neighbors
+     * @param parameters ParameterBlock of the model's parameters, shared with the UI's parameter sliders
+     * @param states StateDictionary of the model's states
+     * @param grid StateGrid already holding the initial states
+     * @return GridEngine ready to step the grid; Game of Life on square cells gets a BitLifeEngine
+     */
+    public static GridEngine create(String simType, String cellShape, String edgeType, List<Integer> neighborIndexes,
+                                    ParameterBlock parameters, StateDictionary states, StateGrid grid){
+        return create(simType, cellShape, edgeType, neighborIndexes, parameters, states, grid,
+                CellRandom.newSeed());
+    }
+
+    /**
+     * Creates the engine like create() above, with the rule drawing its random numbers from the given seed,
+     * so that every run with the same seed and initial grid steps through the same generations
+     * @param simType String of the simulation model (the Type tag of the XML file)
+     * @param cellShape String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighborIndexes List of the indexes corresponding to the desired neighbors
+     * @param parameters ParameterBlock of the model's parameters, shared with the UI's parameter sliders
+     * @param states StateDictionary of the model's states
+     * @param grid StateGrid already holding the initial states
+     * @param seed seed of the rule's random numbers (see CellRandom)
+     * @return GridEngine ready to step the grid
+     */
+    public static GridEngine create(String simType, String cellShape, String edgeType, List<Integer> neighborIndexes,
+                                    ParameterBlock parameters, StateDictionary states, StateGrid grid, long seed){
+        if(GOL.equals(simType) && BitLifeEngine.supports(cellShape)){
+            return new BitLifeEngine(grid, states, edgeType, neighborIndexes);
+        }
+        NeighborTable neighbors = NeighborTopology.getTable(cellShape, edgeType, neighborIndexes, grid.getRows(),
+                grid.getCols());
+        Rule rule = createRule(simType, grid, neighbors, states, parameters);
+        rule.setSeed(seed);
+        return new GridEngine(grid, neighbors, states, rule);
+    }
+
+    /**
+     * Creates the grid of initial states, either explicitly specified for every cell or drawn at random.
+     * Random states follow the state percentages as weights, drawn for every cell or, for exact counts, shuffled
+     * so that every state has its percentage of the cells (see InitialStates); without percentages every state
+     * is equally likely.
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     * @param states StateDictionary of the model's states
+     * @param statePercent map of the percentage (if any) of each state in the initial configuration
+     * @param cellStates explicitly specified state code of each cell, row by row, in the codes of states
+     * @param specConfig true if the cells' states are explicitly specified
+     * @param exactCounts true to give every state exactly its percentage of the cells rather than drawing them
+     * @return StateGrid holding the initial states
+     */
+    public static StateGrid createGrid(int rows, int cols, StateDictionary states, Map<String, Double> statePercent,
+                                       byte[] cellStates, boolean specConfig, boolean exactCounts){
+        return createGrid(rows, cols, states, statePercent, cellStates, specConfig, exactCounts,
+                CellRandom.newSeed());
+    }
+
+    /**
+     * Creates the grid of initial states like createGrid() above, drawing the state of every cell from the
+     * seed's numbers of the initial grid, so that the same seed always draws the same grid
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     * @param states StateDictionary of the model's states
+     * @param statePercent map of the percentage (if any) of each state in the initial configuration
+     * @param cellStates explicitly specified state code of each cell, row by row, in the codes of states
+     * @param specConfig true if the cells' states are explicitly specified
+     * @param exactCounts true to give every state exactly its percentage of the cells rather than drawing them
+     * @param seed seed of the simulation's random numbers (see CellRandom)
+     * @return StateGrid holding the initial states
+     */
+    public static StateGrid createGrid(int rows, int cols, StateDictionary states, Map<String, Double> statePercent,
+                                       byte[] cellStates, boolean specConfig, boolean exactCounts, long seed){
+        StateGrid grid = new StateGrid(rows, cols);
+        fillGrid(grid, states, statePercent, cellStates, specConfig, exactCounts, seed);
+        return grid;
+    }
+
+    /**
+     * Overwrites the states of an existing grid with initial states drawn like createGrid() does, so that a
+     * simulation can be reset, or another one of the same size started, without allocating a new grid
+     * @param grid StateGrid whose current states are replaced
+     * @param states StateDictionary of the model's states
+     * @param statePercent map of the percentage (if any) of each state in the initial configuration
+     * @param cellStates explicitly specified state code of each cell, row by row, in the codes of states
+     * @param specConfig true if the cells' states are explicitly specified
+     * @param exactCounts true to give every state exactly its percentage of the cells rather than drawing them
+     * @param seed seed of the simulation's random numbers (see CellRandom)
+     */
+    public static void fillGrid(StateGrid grid, StateDictionary states, Map<String, Double> statePercent,
+                                byte[] cellStates, boolean specConfig, boolean exactCounts, long seed){
+        if(specConfig){
+            System.arraycopy(cellStates, 0, grid.getCurrentPlane(), 0, grid.size());
+            return;
+        }
+        InitialStates initialStates = new InitialStates(states, statePercent, seed);
+        if(exactCounts){
+            initialStates.shuffle(grid.getCurrentPlane());
+        }
+        else{
+            initialStates.draw(grid.getCurrentPlane());
+        }
+    }
+
+    private static Rule createRule(String simType, StateGrid grid, NeighborTable neighbors,
+                                   StateDictionary states, ParameterBlock parameters){
+        switch(simType){
+            case GOL:
+                return new RuleGameOfLife(grid, neighbors, states, parameters);
+            case WATOR:
+                return new RuleWATOR(grid, neighbors, states, parameters);
+            case FIRE:
+                return new RuleFire(grid, neighbors, states, parameters);
+            case SEG:
+                return new RuleSegregation(grid, neighbors, states, parameters);
+            case PERC:
+                return new RulePercolation(grid, neighbors, states, parameters);
+            case RPS:
+                return new RuleRPS(grid, neighbors, states, parameters);
+        }
+        throw new IllegalArgumentException("Unknown Simulation Type");
+    }
+}
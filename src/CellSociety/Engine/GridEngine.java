@@ -0,0 +1,498 @@
+package CellSociety.Engine;
+
+import CellSociety.Metrics.MetricsRegistry;
+import CellSociety.Neighbors.NeighborTable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps a StateGrid one generation at a time according to a Rule.
+ * This replaces looping over a Cell[][] and calling findNextState() then updateState() on every Cell:
+ * states are byte codes in flat arrays, so a generation is two passes over primitive memory.
+ *
+ * With more than one thread, the find phase of local rules is split into bands of cells that run on a
+ * ForkJoinPool. The next plane is only made current once every band has finished, so the results are
+ * the same as stepping serially. The band tasks are created with the pool and reinitialized for every
+ * phase, and the stepping thread finds the first band itself and then helps the pool until it is quiescent
+ * rather than blocking in invoke(), which allocates a wait node, so stepping in parallel allocates nothing.
+ * Non-local rules always run serially, as their cells claim each other.
+ * Rules with several phases have every phase finished for all cells before the next one starts.
+ *
+ * Incremental rules (see Rule.isIncremental()) are stepped on an active set: only cells that changed
+ * in the last generation and the cells that have them as neighbors are evaluated, and their new states
+ * are committed in place instead of swapping the planes. Once a fire has burnt out or percolation has
+ * stopped spreading, a generation costs next to nothing and isConverged() reports it.
+ *
+ * The engine keeps the number of cells in each state up to date with every transition, so charts and
+ * exporters can read the population in O(states) rather than counting the grid.
+ *
+ * Given a MetricsRegistry, the engine reports how long the find and commit phases of every generation take.
+ */
+public class GridEngine {
+    //bands per thread, so that threads finishing early can steal work
+    private static final int BANDS_PER_THREAD = 4;
+    //smallest number of cells worth handing to another thread
+    private static final int MIN_BAND_CELLS = 1024;
+
+    private final StateGrid myGrid;
+    private final NeighborTable myNeighbors;
+    private final StateDictionary myStates;
+    private final Rule myRule;
+    private long myGeneration;
+    private final boolean isIncremental;
+    private final NeighborTable myDependents;
+    private ForkJoinPool myPool;
+    private FindTask[] myBands;
+    private int myNumBands;
+    private MetricsRegistry myMetrics;
+
+    //cells to evaluate in the next generation, and a flag per cell to add each only once
+    private int[] myActive;
+    private int myNumActive;
+    private boolean[] isActive;
+
+    //cells whose state changed in the last generation
+    private final int[] myChanged;
+    private int myNumChanged;
+
+    //number of cells in each state, indexed by state code
+    private final int[] myPopulation;
+
+    /**
+     * @param grid StateGrid holding the initial states
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary of the simulation
+     * @param rule Rule of the simulation model, bound to the same grid
+     */
+    public GridEngine(StateGrid grid, NeighborTable neighbors, StateDictionary states, Rule rule){
+        this(grid, neighbors, states, rule, rule.isLocal() && rule.isIncremental());
+    }
+
+    /**
+     * For engines that override step() to update the grid themselves, reporting every change through
+     * recordChange(); they may have no NeighborTable or Rule at all.
+     * @param grid StateGrid holding the initial states
+     * @param neighbors NeighborTable of the grid, or null
+     * @param states StateDictionary of the simulation
+     * @param rule Rule of the simulation model bound to the same grid, or null
+     * @param incremental true to step the rule on an active set of cells
+     */
+    protected GridEngine(StateGrid grid, NeighborTable neighbors, StateDictionary states, Rule rule,
+                         boolean incremental){
+        myGrid = grid;
+        myNeighbors = neighbors;
+        myStates = states;
+        myRule = rule;
+        myGeneration = 0;
+        isIncremental = incremental;
+        myDependents = isIncremental ? neighbors.getReverse() : null;
+        myChanged = new int[grid.size()];
+        myNumChanged = -1;
+        myPopulation = new int[states.size()];
+        if(isIncremental){
+            myActive = new int[grid.size()];
+            isActive = new boolean[grid.size()];
+        }
+        invalidate();
+    }
+
+    /**
+     * Updates all cells' states to the next generation
+     */
+    public void step(){
+        startFindPhase();
+        myRule.startGeneration(myGeneration);
+        if(isIncremental){
+            findPhases(myNumActive, true);
+            endFindPhase();
+            commitActive();
+        }
+        else{
+            findPhases(myGrid.size(), myRule.isLocal());
+            endFindPhase();
+            commitAll();
+        }
+        myRule.endGeneration();
+        myGeneration++;
+        endCommitPhase();
+    }
+
+    /**
+     * Advances the grid by a number of generations. Afterwards the changed cells are those that differ
+     * from before the call, which engines able to skip generations may report without stepping each one.
+     * @param generations number of generations to advance
+     */
+    public void advance(long generations){
+        for(long i = 0; i < generations; i++){
+            step();
+        }
+    }
+
+    /**
+     * Starts a new list of changed cells, for engines that update the grid themselves
+     */
+    protected void startChanges(){
+        myNumChanged = 0;
+    }
+
+    /**
+     * Sets the current state of a cell and records the change in the changed list and population,
+     * for engines that update the grid themselves
+     * @param cell flat index of the cell
+     * @param state byte code of its new state, different from its current one
+     */
+    protected void recordChange(int cell, byte state){
+        myPopulation[myGrid.getState(cell)]--;
+        myPopulation[state]++;
+        myGrid.setState(cell, state);
+        myChanged[myNumChanged++] = cell;
+    }
+
+    /**
+     * Counts generations stepped by engines that update the grid themselves
+     * @param generations number of generations just completed
+     */
+    protected void addGenerations(long generations){
+        myGeneration += generations;
+    }
+
+    /**
+     * Marks the start of a generation for the metrics, if any
+     */
+    protected void startFindPhase(){
+        if(myMetrics != null){
+            myMetrics.startGeneration();
+        }
+    }
+
+    /**
+     * Marks the end of finding the next states for the metrics, if any
+     */
+    protected void endFindPhase(){
+        if(myMetrics != null){
+            myMetrics.endFindPhase();
+        }
+    }
+
+    /**
+     * Marks the end of a generation for the metrics, if any, once the changed cells are recorded
+     */
+    protected void endCommitPhase(){
+        if(myMetrics != null){
+            myMetrics.endGeneration(myNumChanged);
+        }
+    }
+
+    //makes the next plane current and lists the cells that changed
+    private void commitAll(){
+        myGrid.swap();
+        byte[] current = myGrid.getCurrentPlane();
+        byte[] previous = myGrid.getNextPlane();
+        myNumChanged = 0;
+        for(int cell = 0; cell < current.length; cell++){
+            if(current[cell] != previous[cell]){
+                myChanged[myNumChanged++] = cell;
+                myPopulation[previous[cell]]--;
+                myPopulation[current[cell]]++;
+            }
+        }
+    }
+
+    //commits the changes of the active cells in place and activates the changes' dependents
+    private void commitActive(){
+        byte[] current = myGrid.getCurrentPlane();
+        byte[] next = myGrid.getNextPlane();
+        myNumChanged = 0;
+        for(int i = 0; i < myNumActive; i++){
+            int cell = myActive[i];
+            isActive[cell] = false;
+            if(next[cell] != current[cell]){
+                myPopulation[current[cell]]--;
+                myPopulation[next[cell]]++;
+                current[cell] = next[cell];
+                myChanged[myNumChanged++] = cell;
+            }
+        }
+        myNumActive = 0;
+        for(int i = 0; i < myNumChanged; i++){
+            activate(myChanged[i]);
+        }
+    }
+
+    //schedules a cell and every cell that has it as a neighbor
+    private void activate(int cell){
+        addActive(cell);
+        int[] offsets = myDependents.getOffsets();
+        int[] dependents = myDependents.getNeighbors();
+        for(int k = offsets[cell]; k < offsets[cell + 1]; k++){
+            addActive(dependents[k]);
+        }
+    }
+
+    private void addActive(int cell){
+        if(!isActive[cell]){
+            isActive[cell] = true;
+            myActive[myNumActive++] = cell;
+        }
+    }
+
+    //takes the first cells (or active cells) through every phase of the rule, one phase after the other
+    private void findPhases(int count, boolean isParallel){
+        for(int phase = 0; phase < myRule.getNumPhases(); phase++){
+            myRule.startPhase(phase);
+            findNextStates(count, isParallel);
+        }
+    }
+
+    //calls the rule on the first cells (or active cells), in parallel bands if there are enough of them
+    private void findNextStates(int count, boolean isParallel){
+        boolean isConcurrent = myPool != null && isParallel && count >= 2 * MIN_BAND_CELLS;
+        if(myRule != null){
+            myRule.setConcurrent(isConcurrent);
+        }
+        if(isConcurrent){
+            myNumBands = Math.min(myBands.length, count / MIN_BAND_CELLS);
+            int bandCells = (count + myNumBands - 1) / myNumBands;
+            for(int i = 0; i < myNumBands; i++){
+                myBands[i].reset(Math.min(count, i * bandCells), Math.min(count, (i + 1) * bandCells));
+            }
+            findBands();
+        }
+        else{
+            findNextStates(0, count);
+        }
+    }
+
+    //hands all bands but the first to the pool and finds the first one; the pool runs nothing but the bands,
+    //so once it is quiescent every band is done, which is the barrier before the commit
+    private void findBands(){
+        for(int i = 1; i < myNumBands; i++){
+            myPool.execute(myBands[i]);
+        }
+        try{
+            myBands[0].compute();
+        }
+        finally{
+            myPool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        //rethrows the exception of a band that failed
+        for(int i = 1; i < myNumBands; i++){
+            myBands[i].join();
+        }
+    }
+
+    //calls the rule from the first position up to, but not including, the last position
+    private void findNextStates(int from, int to){
+        if(isIncremental){
+            for(int i = from; i < to; i++){
+                myRule.findNextState(myActive[i]);
+            }
+            return;
+        }
+        for(int cell = from; cell < to; cell++){
+            myRule.findNextState(cell);
+        }
+    }
+
+    /**
+     * Recounts the population and schedules every cell to be evaluated in the next generation.
+     * Needed after states were set directly on the grid rather than through userSwitchState().
+     */
+    public void invalidate(){
+        Arrays.fill(myPopulation, 0);
+        for(int cell = 0; cell < myGrid.size(); cell++){
+            myPopulation[myGrid.getState(cell)]++;
+        }
+        if(!isIncremental){
+            return;
+        }
+        for(int cell = 0; cell < myGrid.size(); cell++){
+            addActive(cell);
+        }
+    }
+
+    /**
+     * @return snapshot of the number of cells in each state, indexed by state code
+     */
+    public int[] getPopulation(){
+        return myPopulation.clone();
+    }
+
+    /**
+     * Copies the number of cells in each state into the given array, so callers can reuse it
+     * @param population array with at least one entry per state
+     */
+    public void getPopulation(int[] population){
+        System.arraycopy(myPopulation, 0, population, 0, myPopulation.length);
+    }
+
+    /**
+     * @param state byte code of a state
+     * @return number of cells currently in the state
+     */
+    public int getPopulation(byte state){
+        return myPopulation[state];
+    }
+
+    /**
+     * @return true if the last generation did not change any cell's state. Under incremental rules the grid
+     * then stays the same until the user changes it; other rules may still move cells around later.
+     */
+    public boolean isConverged(){
+        return myNumChanged == 0;
+    }
+
+    /**
+     * The array is reused every generation; only the first getNumChanged() entries are valid.
+     * @return flat indexes of the cells whose state changed in the last generation
+     */
+    public int[] getChanged(){
+        return myChanged;
+    }
+
+    /**
+     * @return number of cells whose state changed in the last generation, or -1 before the first generation
+     */
+    public int getNumChanged(){
+        return myNumChanged;
+    }
+
+    /**
+     * @return number of cells that will be evaluated in the next generation
+     */
+    public int getNumActive(){
+        return isIncremental ? myNumActive : myGrid.size();
+    }
+
+    /**
+     * Sets the number of threads used to find the next states of local rules.
+     * @param threads number of threads; 1 or less steps serially on the calling thread
+     */
+    public void setThreadCount(int threads){
+        shutdown();
+        if(threads > 1){
+            myPool = new ForkJoinPool(threads);
+            myBands = new FindTask[threads * BANDS_PER_THREAD];
+            for(int i = 0; i < myBands.length; i++){
+                myBands[i] = new FindTask();
+            }
+        }
+    }
+
+    /**
+     * @param metrics MetricsRegistry the phases of every generation are recorded in, or null to record nothing
+     */
+    public void setMetrics(MetricsRegistry metrics){
+        myMetrics = metrics;
+    }
+
+    /**
+     * @return number of threads used to find the next states of local rules
+     */
+    public int getThreadCount(){
+        return myPool == null ? 1 : myPool.getParallelism();
+    }
+
+    /**
+     * Stops the engine's threads, if any. The engine keeps working serially afterwards.
+     */
+    public void shutdown(){
+        if(myPool != null){
+            myPool.shutdown();
+            myPool = null;
+        }
+    }
+
+    /**
+     * @param row row index of a cell
+     * @param col column index of a cell
+     * @return String name of the cell's current state
+     */
+    public String getState(int row, int col){
+        return myStates.nameOf(myGrid.getState(myGrid.index(row, col)));
+    }
+
+    /**
+     * Switches the current state of a cell to the state with the next code, wrapping around.
+     * This was created for the purpose of UI calling it when a user clicks on a cell.
+     * @param row row index of the cell
+     * @param col column index of the cell
+     */
+    public void userSwitchState(int row, int col){
+        int cell = myGrid.index(row, col);
+        byte state = (byte) ((myGrid.getState(cell) + 1) % myStates.size());
+        myPopulation[myGrid.getState(cell)]--;
+        myPopulation[state]++;
+        myGrid.setState(cell, state);
+        if(myRule != null){
+            myRule.userSwitchedState(cell);
+        }
+        if(isIncremental){
+            activate(cell);
+        }
+    }
+
+    /**
+     * @return number of generations stepped so far
+     */
+    public long getGeneration(){
+        return myGeneration;
+    }
+
+    /**
+     * Sets the generation count, e.g. when resuming a simulation from a GridSnapshot
+     * @param generation number of generations stepped so far
+     */
+    public void setGeneration(long generation){
+        myGeneration = generation;
+    }
+
+    /**
+     * @return the StateGrid stepped by this engine
+     */
+    public StateGrid getGrid(){
+        return myGrid;
+    }
+
+    /**
+     * @return the NeighborTable of the grid, or null if the engine does not need one
+     */
+    public NeighborTable getNeighbors(){
+        return myNeighbors;
+    }
+
+    /**
+     * @return the StateDictionary of the simulation
+     */
+    public StateDictionary getStates(){
+        return myStates;
+    }
+
+    /**
+     * @return the Rule applied every generation, or null if the engine applies the rules itself
+     */
+    public Rule getRule(){
+        return myRule;
+    }
+
+    //finds the next states of a band of cells, set anew for every phase
+    @SuppressWarnings("serial")
+    private class FindTask extends RecursiveAction {
+        private int myFrom;
+        private int myTo;
+
+        void reset(int from, int to){
+            reinitialize();
+            myFrom = from;
+            myTo = to;
+        }
+
+        @Override
+        protected void compute(){
+            findNextStates(myFrom, myTo);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package CellSociety.Engine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a running simulation, an alternative to describing an initial grid cell by cell in XML.
+ * The file starts with a header holding everything the XML file would (model type, dimensions, cell shape,
+ * edge type, neighbor indexes, parameters and the states with their images) plus the generation number and
+ * the seed of the rule's random numbers, so a resumed run continues exactly as the saved one would have,
+ * followed by the state plane with one byte per cell and the rule's extra per-cell planes
+ * (see Rule.getCellData()), e.g. the turns survived and energy of WaTor animals.
+ *
+ * Files are written and read through a MappedByteBuffer of a FileChannel, so the planes are moved with
+ * bulk copies and a multi-million-cell grid takes milliseconds. Numbers are little-endian and the
+ * double planes start on 8-byte boundaries.
+ */
+public class GridSnapshot {
+    public static final String EXTENSION = ".grid";
+
+    //"CSGR" followed by the format version
+    private static final int MAGIC = 0x52475343;
+    private static final int VERSION = 2;
+    //first version storing the seed
+    private static final int SEED_VERSION = 2;
+    private static final int ALIGNMENT = Double.BYTES;
+
+    private final String mySimType;
+    private final String myCellShape;
+    private final String myEdgeType;
+    private final List<Integer> myNeighbors;
+    private final List<Double> myParameters;
+    private final Map<String, String> myStateImages;
+    private final int myRows;
+    private final int myCols;
+    private final long myGeneration;
+    private final long mySeed;
+    private final byte[] myStates;
+    private final double[][] myCellData;
+
+    /**
+     * Captures the current generation of an engine. The planes are not copied, so the snapshot has to be
+     * written before the engine steps again.
+     * @param simType String of the simulation model (the Type tag of the XML file)
+     * @param cellShape String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighbors List of the indexes corresponding to the desired neighbors
+     * @param parameters List of the model's current parameters
+     * @param stateImages map of the image of each state, in the order of the engine's state codes
+     * @param engine GridEngine of the simulation
+     */
+    public GridSnapshot(String simType, String cellShape, String edgeType, List<Integer> neighbors,
+                        List<Double> parameters, Map<String, String> stateImages, GridEngine engine){
+        this(simType, cellShape, edgeType, neighbors, parameters, stateImages, engine.getGrid().getRows(),
+                engine.getGrid().getCols(), engine.getGeneration(),
+                engine.getRule() == null ? 0 : engine.getRule().getSeed(), engine.getGrid().getCurrentPlane(),
+                engine.getRule() == null ? new double[0][] : engine.getRule().getCellData());
+    }
+
+    private GridSnapshot(String simType, String cellShape, String edgeType, List<Integer> neighbors,
+                         List<Double> parameters, Map<String, String> stateImages, int rows, int cols,
+                         long generation, long seed, byte[] states, double[][] cellData){
+        mySimType = simType;
+        myCellShape = cellShape;
+        myEdgeType = edgeType;
+        myNeighbors = new ArrayList<>(neighbors);
+        myParameters = new ArrayList<>(parameters);
+        myStateImages = new LinkedHashMap<>(stateImages);
+        myRows = rows;
+        myCols = cols;
+        myGeneration = generation;
+        mySeed = seed;
+        myStates = states;
+        myCellData = cellData;
+    }
+
+    /**
+     * Copies the planes of the snapshot, so that the copy can be written while the engine keeps stepping.
+     * The planes of an earlier copy of a grid of the same size are reused rather than allocated again.
+     * @param reuse earlier copy whose planes may be overwritten, or null
+     * @return snapshot holding its own copy of the planes
+     */
+    public GridSnapshot copy(GridSnapshot reuse){
+        boolean isReusable = reuse != null && reuse.myStates.length == myStates.length
+                && reuse.myCellData.length == myCellData.length;
+        byte[] states = isReusable ? reuse.myStates : new byte[myStates.length];
+        double[][] cellData = isReusable ? reuse.myCellData : new double[myCellData.length][];
+        System.arraycopy(myStates, 0, states, 0, states.length);
+        for(int i = 0; i < cellData.length; i++){
+            if(cellData[i] == null || cellData[i].length != myCellData[i].length){
+                cellData[i] = new double[myCellData[i].length];
+            }
+            System.arraycopy(myCellData[i], 0, cellData[i], 0, cellData[i].length);
+        }
+        return new GridSnapshot(mySimType, myCellShape, myEdgeType, myNeighbors, myParameters, myStateImages,
+                myRows, myCols, myGeneration, mySeed, states, cellData);
+    }
+
+    /**
+     * Writes the snapshot, replacing the file if it exists
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException{
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(encode(mySimType));
+        strings.add(encode(myCellShape));
+        strings.add(encode(myEdgeType));
+        for(Map.Entry<String, String> entry : myStateImages.entrySet()){
+            strings.add(encode(entry.getKey()));
+            strings.add(encode(entry.getValue()));
+        }
+        //magic, version, rows, cols, generation, seed and the counts of neighbors, parameters, states and planes
+        long headerSize = 8 * Integer.BYTES + 2 * Long.BYTES
+                + Integer.BYTES * (long) myNeighbors.size() + Double.BYTES * (long) myParameters.size();
+        for(byte[] string : strings){
+            headerSize += Integer.BYTES + string.length;
+        }
+        long planesStart = align(headerSize);
+        long size = align(planesStart + myStates.length) + (long) myCellData.length * myStates.length * Double.BYTES;
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            putString(buffer, strings.get(0));
+            putString(buffer, strings.get(1));
+            putString(buffer, strings.get(2));
+            buffer.putInt(myRows).putInt(myCols).putLong(myGeneration).putLong(mySeed);
+            buffer.putInt(myNeighbors.size());
+            for(int neighbor : myNeighbors){
+                buffer.putInt(neighbor);
+            }
+            buffer.putInt(myParameters.size());
+            for(double parameter : myParameters){
+                buffer.putDouble(parameter);
+            }
+            buffer.putInt(myStateImages.size());
+            for(int i = 3; i < strings.size(); i++){
+                putString(buffer, strings.get(i));
+            }
+            buffer.putInt(myCellData.length);
+            buffer.position((int) planesStart);
+            buffer.put(myStates);
+            buffer.position((int) align(buffer.position()));
+            for(double[] plane : myCellData){
+                buffer.asDoubleBuffer().put(plane);
+                buffer.position(buffer.position() + plane.length * Double.BYTES);
+            }
+        }
+    }
+
+    /**
+     * @param path file to read
+     * @return the snapshot stored in the file
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static GridSnapshot read(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt() != MAGIC){
+                throw new IOException("Not a grid snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if(version < 1 || version > VERSION){
+                throw new IOException("Unsupported grid snapshot version " + version + ": " + path);
+            }
+            String simType = getString(buffer);
+            String cellShape = getString(buffer);
+            String edgeType = getString(buffer);
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            long generation = buffer.getLong();
+            //snapshots written before seeds were stored continue with new random numbers
+            long seed = version >= SEED_VERSION ? buffer.getLong() : CellRandom.newSeed();
+            List<Integer> neighbors = new ArrayList<>();
+            for(int i = buffer.getInt(); i > 0; i--){
+                neighbors.add(buffer.getInt());
+            }
+            List<Double> parameters = new ArrayList<>();
+            for(int i = buffer.getInt(); i > 0; i--){
+                parameters.add(buffer.getDouble());
+            }
+            Map<String, String> stateImages = new LinkedHashMap<>();
+            for(int i = buffer.getInt(); i > 0; i--){
+                stateImages.put(getString(buffer), getString(buffer));
+            }
+            int numPlanes = buffer.getInt();
+            if(rows < 0 || cols < 0 || numPlanes < 0
+                    || (long) rows * cols * (1 + (long) numPlanes * Double.BYTES) > channel.size()){
+                throw new IOException("Truncated or corrupt grid snapshot: " + path);
+            }
+            double[][] cellData = new double[numPlanes][rows * cols];
+            buffer.position((int) align(buffer.position()));
+            byte[] states = new byte[rows * cols];
+            buffer.get(states);
+            buffer.position((int) align(buffer.position()));
+            for(double[] plane : cellData){
+                buffer.asDoubleBuffer().get(plane);
+                buffer.position(buffer.position() + plane.length * Double.BYTES);
+            }
+            return new GridSnapshot(simType, cellShape, edgeType, neighbors, parameters, stateImages, rows, cols,
+                    generation, seed, states, cellData);
+        }
+        catch(BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e){
+            throw new IOException("Truncated or corrupt grid snapshot: " + path, e);
+        }
+    }
+
+    /**
+     * Creates the engine of the snapshot's model, resuming at the stored generation with the stored
+     * states, per-cell data and seed. Its rule reads a new ParameterBlock of getParameters(), see Rule.getParameters().
+     * @return GridEngine ready to step the grid
+     */
+    public GridEngine createEngine(){
+        StateDictionary states = new StateDictionary(myStateImages.keySet());
+        StateGrid grid = new StateGrid(myRows, myCols);
+        System.arraycopy(myStates, 0, grid.getCurrentPlane(), 0, grid.size());
+        GridEngine engine = EngineFactory.create(mySimType, myCellShape, myEdgeType, myNeighbors,
+                new ParameterBlock(myParameters), states, grid, mySeed);
+        engine.setGeneration(myGeneration);
+        if(engine.getRule() != null){
+            engine.getRule().setCellData(myCellData);
+        }
+        return engine;
+    }
+
+    /**
+     * @return String of the simulation model (the Type tag of the XML file)
+     */
+    public String getSimType(){
+        return mySimType;
+    }
+
+    /**
+     * @return String of the cell shape (Square, Triangle)
+     */
+    public String getCellShape(){
+        return myCellShape;
+    }
+
+    /**
+     * @return String of the edge type (Finite, Toroidal)
+     */
+    public String getEdgeType(){
+        return myEdgeType;
+    }
+
+    /**
+     * @return immutable list of the neighbor indexes
+     */
+    public List<Integer> getNeighbors(){
+        return Collections.unmodifiableList(myNeighbors);
+    }
+
+    /**
+     * @return list of the model's parameters at the time the snapshot was taken
+     */
+    public List<Double> getParameters(){
+        return myParameters;
+    }
+
+    /**
+     * @return immutable map of the image of each state, in the order of the state codes
+     */
+    public Map<String, String> getStateImages(){
+        return Collections.unmodifiableMap(myStateImages);
+    }
+
+    /**
+     * @return number of rows in the grid
+     */
+    public int getRows(){
+        return myRows;
+    }
+
+    /**
+     * @return number of columns in the grid
+     */
+    public int getCols(){
+        return myCols;
+    }
+
+    /**
+     * @return generation the snapshot was taken at
+     */
+    public long getGeneration(){
+        return myGeneration;
+    }
+
+    /**
+     * @return seed of the rule's random numbers
+     */
+    public long getSeed(){
+        return mySeed;
+    }
+
+    private static long align(long position){
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static byte[] encode(String string){
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(MappedByteBuffer buffer, byte[] string){
+        buffer.putInt(string.length);
+        buffer.put(string);
+    }
+
+    private static String getString(MappedByteBuffer buffer){
+        byte[] string = new byte[buffer.getInt()];
+        buffer.get(string);
+        return new String(string, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,248 @@
+package CellSociety.Engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HashLife for Game of Life on a toroidal grid whose sides are the same power of two.
+ * The grid is stored as a quadtree of canonical nodes, so identical regions share one node, and the result
+ * of advancing a node (its centre half after 2^j generations) is memoized on the node. Skipping 2^j
+ * generations therefore costs about as much as the number of distinct regions, not the number of cells.
+ *
+ * A torus is the infinite plane tiled with copies of the grid, so the quadtree of four (or more) copies is
+ * advanced and the grid cut back out of the result. Only birth on 3 and survival on 2 or 3 neighbors is
+ * supported, with any subset of the eight square neighbors.
+ */
+class HashLife {
+    //nodes beyond this many are dropped between jumps of a power of two to bound memory
+    private static final int MAX_NODES = 1 << 21;
+    private static final int BASE_LEVEL = 2;
+    private static final int BASE_SIZE = 4;
+
+    private final int[] myRowOffsets;
+    private final int[] myColOffsets;
+    private final Map<Node, Node> myNodes;
+    private final Node myDead;
+    private final Node myAlive;
+    private Node myTorus;
+
+    /**
+     * @param rowOffsets row offsets of the counted neighbors
+     * @param colOffsets column offsets of the counted neighbors
+     */
+    HashLife(int[] rowOffsets, int[] colOffsets){
+        myRowOffsets = rowOffsets;
+        myColOffsets = colOffsets;
+        myNodes = new HashMap<>();
+        myDead = new Node(0, 0);
+        myAlive = new Node(1, 1);
+    }
+
+    /**
+     * Forgets the grid kept from the last advance, which has to be done whenever the grid changed since
+     */
+    void reset(){
+        myTorus = null;
+    }
+
+    /**
+     * Advances a torus held in a bit-packed grid. The quadtree of the result is kept, so consecutive
+     * advances without a reset() in between do not rebuild it.
+     * @param bits rows of words, 64 cells per word, bit c % 64 of word c / 64 holding column c
+     * @param size number of rows and columns, a power of two
+     * @param words number of words per row
+     * @param generations number of generations to advance
+     * @return the advanced grid in the same layout
+     */
+    long[] advance(long[] bits, int size, int words, long generations){
+        int level = Integer.numberOfTrailingZeros(size);
+        Node torus = myTorus != null ? myTorus : build(bits, words, 0, 0, size);
+        long remaining = generations;
+        while(remaining > 0){
+            if(myNodes.size() > MAX_NODES){
+                myNodes.clear();
+            }
+            torus = stepTorus(torus, level, Long.numberOfTrailingZeros(remaining));
+            remaining &= remaining - 1;
+        }
+        myTorus = torus;
+        long[] result = new long[bits.length];
+        write(torus, result, words, 0, 0, size);
+        return result;
+    }
+
+    //advances the torus by 2^j generations
+    private Node stepTorus(Node torus, int level, int j){
+        if(j <= level - 1){
+            //the centre of two by two copies starts half a grid in, so its quadrants are swapped back
+            Node result = successor(join(torus, torus, torus, torus), j);
+            return join(result.mySE, result.mySW, result.myNE, result.myNW);
+        }
+        Node tiles = torus;
+        for(int i = level; i < j + 2; i++){
+            tiles = join(tiles, tiles, tiles, tiles);
+        }
+        //the centre starts 2^j cells in, a whole number of grids, so its corner is the grid itself
+        Node result = successor(tiles, j);
+        while(result.myLevel > level){
+            result = result.myNW;
+        }
+        return result;
+    }
+
+    //centre half of the node after 2^j generations, with j at most the node's level - 2
+    private Node successor(Node node, int j){
+        if(node.myResults[j] != null){
+            return node.myResults[j];
+        }
+        Node result;
+        if(node.myLevel == BASE_LEVEL){
+            result = base(node);
+        }
+        else{
+            Node[] parts = {
+                    node.myNW, join(node.myNW.myNE, node.myNE.myNW, node.myNW.mySE, node.myNE.mySW), node.myNE,
+                    join(node.myNW.mySW, node.myNW.mySE, node.mySW.myNW, node.mySW.myNE),
+                    join(node.myNW.mySE, node.myNE.mySW, node.mySW.myNE, node.mySE.myNW),
+                    join(node.myNE.mySW, node.myNE.mySE, node.mySE.myNW, node.mySE.myNE),
+                    node.mySW, join(node.mySW.myNE, node.mySE.myNW, node.mySW.mySE, node.mySE.mySW), node.mySE};
+            boolean isFullStep = j == node.myLevel - 2;
+            for(int i = 0; i < parts.length; i++){
+                parts[i] = isFullStep ? successor(parts[i], j - 1) : centre(parts[i]);
+            }
+            int next = isFullStep ? j - 1 : j;
+            result = join(
+                    successor(join(parts[0], parts[1], parts[3], parts[4]), next),
+                    successor(join(parts[1], parts[2], parts[4], parts[5]), next),
+                    successor(join(parts[3], parts[4], parts[6], parts[7]), next),
+                    successor(join(parts[4], parts[5], parts[7], parts[8]), next));
+        }
+        node.myResults[j] = result;
+        return result;
+    }
+
+    private Node centre(Node node){
+        return join(node.myNW.mySE, node.myNE.mySW, node.mySW.myNE, node.mySE.myNW);
+    }
+
+    //one generation of the centre two by two cells of a four by four node
+    private Node base(Node node){
+        Node[] cells = new Node[4];
+        for(int row = 1; row <= 2; row++){
+            for(int col = 1; col <= 2; col++){
+                int alive = 0;
+                for(int k = 0; k < myRowOffsets.length; k++){
+                    alive += (node.myMask >>> ((row + myRowOffsets[k]) * BASE_SIZE + col + myColOffsets[k])) & 1;
+                }
+                boolean isAlive = ((node.myMask >>> (row * BASE_SIZE + col)) & 1) != 0;
+                cells[(row - 1) * 2 + col - 1] = alive == 3 || (alive == 2 && isAlive) ? myAlive : myDead;
+            }
+        }
+        return join(cells[0], cells[1], cells[2], cells[3]);
+    }
+
+    //the canonical node with the given quadrants
+    private Node join(Node nw, Node ne, Node sw, Node se){
+        Node node = new Node(nw, ne, sw, se);
+        Node canonical = myNodes.putIfAbsent(node, node);
+        return canonical == null ? node : canonical;
+    }
+
+    //quadtree of the square of the given size at the given row and column
+    private Node build(long[] bits, int words, int row, int col, int size){
+        if(size == 1){
+            return ((bits[row * words + col / Long.SIZE] >>> (col % Long.SIZE)) & 1) != 0 ? myAlive : myDead;
+        }
+        int half = size / 2;
+        return join(build(bits, words, row, col, half), build(bits, words, row, col + half, half),
+                build(bits, words, row + half, col, half), build(bits, words, row + half, col + half, half));
+    }
+
+    //writes the alive cells of the quadtree into the bit-packed grid
+    private void write(Node node, long[] bits, int words, int row, int col, int size){
+        if(node.myPopulation == 0){
+            return;
+        }
+        if(size == 1){
+            bits[row * words + col / Long.SIZE] |= 1L << (col % Long.SIZE);
+            return;
+        }
+        int half = size / 2;
+        write(node.myNW, bits, words, row, col, half);
+        write(node.myNE, bits, words, row, col + half, half);
+        write(node.mySW, bits, words, row + half, col, half);
+        write(node.mySE, bits, words, row + half, col + half, half);
+    }
+
+    //square of 2^level cells; nodes up to four cells wide also keep their cells as a bit mask
+    private static class Node {
+        private final Node myNW;
+        private final Node myNE;
+        private final Node mySW;
+        private final Node mySE;
+        private final int myLevel;
+        private final long myPopulation;
+        private final int myMask;
+        private final int myHash;
+        private final Node[] myResults;
+
+        //a single cell
+        Node(int alive, int mask){
+            myNW = null;
+            myNE = null;
+            mySW = null;
+            mySE = null;
+            myLevel = 0;
+            myPopulation = alive;
+            myMask = mask;
+            myHash = alive;
+            myResults = new Node[0];
+        }
+
+        Node(Node nw, Node ne, Node sw, Node se){
+            myNW = nw;
+            myNE = ne;
+            mySW = sw;
+            mySE = se;
+            myLevel = nw.myLevel + 1;
+            myPopulation = nw.myPopulation + ne.myPopulation + sw.myPopulation + se.myPopulation;
+            myMask = myLevel <= BASE_LEVEL ? combineMasks() : 0;
+            myHash = ((System.identityHashCode(nw) * 31 + System.identityHashCode(ne)) * 31
+                    + System.identityHashCode(sw)) * 31 + System.identityHashCode(se);
+            myResults = new Node[Math.max(0, myLevel - 1)];
+        }
+
+        //row-major bit mask of the node's cells, each row 2^level bits wide (four for the base level)
+        private int combineMasks(){
+            int half = 1 << (myLevel - 1);
+            int width = myLevel == BASE_LEVEL ? BASE_SIZE : 2;
+            int mask = 0;
+            Node[] quadrants = {myNW, myNE, mySW, mySE};
+            for(int q = 0; q < quadrants.length; q++){
+                int rowOrigin = (q / 2) * half;
+                int colOrigin = (q % 2) * half;
+                for(int row = 0; row < half; row++){
+                    for(int col = 0; col < half; col++){
+                        int bit = (quadrants[q].myMask >>> (row * half + col)) & 1;
+                        mask |= bit << ((rowOrigin + row) * width + colOrigin + col);
+                    }
+                }
+            }
+            return mask;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if(!(other instanceof Node)){
+                return false;
+            }
+            Node node = (Node) other;
+            return myNW == node.myNW && myNE == node.myNE && mySW == node.mySW && mySE == node.mySE;
+        }
+
+        @Override
+        public int hashCode(){
+            return myHash;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package CellSociety.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Random initial states of a grid, following the state percentages of a model exactly rather than through a
+ * list of repeated states. The percentages are weights, so they need not add up to 1; without percentages
+ * every state is equally likely.
+ *
+ * draw() picks every cell's state independently with the alias method: a cell picks one of the states'
+ * columns uniformly and keeps its state with the column's chance, or takes its alias otherwise, so a draw
+ * takes two random numbers however many states there are. shuffle() gives every state exactly its share of
+ * the cells instead, rounded by largest remainder, and shuffles them with MergeShuffle: bands of cells are
+ * shuffled with Fisher-Yates, and pairs of shuffled halves merged by taking the next cell from either half
+ * at random. Both work on bands of the grid in parallel in the common ForkJoinPool. The bands and the draws
+ * of every cell only depend on the size of the grid, so a seed gives the same grid on any number of threads.
+ */
+final class InitialStates {
+    //cells drawn by one task
+    private static final int DRAW_BAND_CELLS = 1 << 16;
+    //cells shuffled with Fisher-Yates by one task, about a core's cache, as every level of merges above the bands
+    //passes over all their cells
+    private static final int SHUFFLE_BAND_CELLS = 1 << 20;
+    //the coins of a merge come 64 at a time from one random number
+    private static final int COIN_SHIFT = 6;
+    private static final int COIN_MASK = (1 << COIN_SHIFT) - 1;
+
+    //draws of a cell's random numbers: the alias column and chance, or the Fisher-Yates swap
+    private static final int COLUMN_DRAW = 0;
+    private static final int CHANCE_DRAW = 1;
+    private static final int SWAP_DRAW = 0;
+
+    private final byte[] myCodes;
+    private final double[] myWeights;
+    private final float[] myChances;
+    private final byte[] myAliases;
+    private final CellRandom myRandom;
+
+    /**
+     * @param states StateDictionary of the model's states
+     * @param statePercent map of the percentage (if any) of each state in the initial configuration
+     * @param seed seed of the simulation's random numbers (see CellRandom)
+     */
+    InitialStates(StateDictionary states, Map<String, Double> statePercent, long seed){
+        List<String> names = statePercent.isEmpty() ? states.getNames() : new ArrayList<>(statePercent.keySet());
+        myCodes = new byte[names.size()];
+        myWeights = new double[names.size()];
+        double total = 0;
+        for(int i = 0; i < myCodes.length; i++){
+            myCodes[i] = states.codeOf(names.get(i));
+            myWeights[i] = statePercent.isEmpty() ? 1 : Math.max(0, statePercent.get(names.get(i)));
+            total += myWeights[i];
+        }
+        for(int i = 0; i < myWeights.length; i++){
+            myWeights[i] = total > 0 ? myWeights[i] / total : 1.0 / myWeights.length;
+        }
+        myChances = new float[myCodes.length];
+        myAliases = new byte[myCodes.length];
+        initAliases();
+        myRandom = new CellRandom(seed);
+    }
+
+    //pairs every column whose state is drawn less often than 1 / columns with one drawn more often (Vose)
+    private void initAliases(){
+        int columns = myCodes.length;
+        double[] scaled = new double[columns];
+        int[] small = new int[columns];
+        int[] large = new int[columns];
+        int numSmall = 0;
+        int numLarge = 0;
+        for(int i = 0; i < columns; i++){
+            scaled[i] = myWeights[i] * columns;
+            if(scaled[i] < 1){
+                small[numSmall++] = i;
+            }
+            else{
+                large[numLarge++] = i;
+            }
+        }
+        while(numSmall > 0 && numLarge > 0){
+            int less = small[--numSmall];
+            int more = large[--numLarge];
+            myChances[less] = (float) scaled[less];
+            myAliases[less] = myCodes[more];
+            scaled[more] += scaled[less] - 1;
+            if(scaled[more] < 1){
+                small[numSmall++] = more;
+            }
+            else{
+                large[numLarge++] = more;
+            }
+        }
+        //the columns left over are full up to rounding errors
+        while(numLarge > 0){
+            myChances[large[--numLarge]] = 1;
+        }
+        while(numSmall > 0){
+            myChances[small[--numSmall]] = 1;
+        }
+    }
+
+    /**
+     * Draws the state of every cell independently from the percentages
+     * @param plane states of the grid's cells, overwritten
+     */
+    void draw(byte[] plane){
+        ForkJoinPool.commonPool().invoke(new DrawTask(plane, 0, plane.length));
+    }
+
+    /**
+     * Gives every state its percentage of the cells, rounded to whole cells, in a random order
+     * @param plane states of the grid's cells, overwritten
+     */
+    void shuffle(byte[] plane){
+        int[] counts = countCells(plane.length);
+        int cell = 0;
+        for(int i = 0; i < myCodes.length; i++){
+            Arrays.fill(plane, cell, cell + counts[i], myCodes[i]);
+            cell += counts[i];
+        }
+        ForkJoinPool.commonPool().invoke(new ShuffleTask(plane, 0, plane.length, 0));
+    }
+
+    //rounds the shares of the cells down, giving the cells left over to the largest remainders
+    private int[] countCells(int size){
+        int[] counts = new int[myCodes.length];
+        double[] remainders = new double[myCodes.length];
+        int left = size;
+        for(int i = 0; i < counts.length; i++){
+            double share = myWeights[i] * size;
+            counts[i] = (int) Math.min(left, Math.floor(share));
+            remainders[i] = share - counts[i];
+            left -= counts[i];
+        }
+        for(; left > 0; left--){
+            int largest = 0;
+            for(int i = 1; i < remainders.length; i++){
+                if(remainders[i] > remainders[largest]){
+                    largest = i;
+                }
+            }
+            counts[largest]++;
+            remainders[largest] = Double.NEGATIVE_INFINITY;
+        }
+        return counts;
+    }
+
+    //draws the states of a band of cells with the alias table
+    private void draw(byte[] plane, int from, int to){
+        for(int cell = from; cell < to; cell++){
+            int column = myRandom.nextInt(cell, COLUMN_DRAW, myCodes.length);
+            plane[cell] = myRandom.nextFloat(cell, CHANCE_DRAW) < myChances[column]
+                    ? myCodes[column] : myAliases[column];
+        }
+    }
+
+    //shuffles a band of cells with Fisher-Yates
+    private void shuffle(byte[] plane, int from, int to){
+        for(int cell = from + 1; cell < to; cell++){
+            swap(plane, cell, from + myRandom.nextInt(cell, SWAP_DRAW, cell - from + 1));
+        }
+    }
+
+    //merges two shuffled halves into a shuffle of both; each level of merges has its own draws
+    private void merge(byte[] plane, int from, int middle, int to, int depth){
+        int coinDraw = 2 * depth + 1;
+        int insertDraw = 2 * depth + 2;
+        int cell = from;
+        int right = middle;
+        long coins = myRandom.nextLong(cell >>> COIN_SHIFT, coinDraw);
+        while(true){
+            if((cell & COIN_MASK) == 0){
+                coins = myRandom.nextLong(cell >>> COIN_SHIFT, coinDraw);
+            }
+            if((coins >>> (cell & COIN_MASK) & 1) == 0){
+                if(cell == right){
+                    break;
+                }
+            }
+            else{
+                if(right == to){
+                    break;
+                }
+                swap(plane, cell, right++);
+            }
+            cell++;
+        }
+        //once a half runs out, the rest of the other one is inserted at random positions, taken from 63 random
+        //bits since there may be millions of them
+        for(; cell < to; cell++){
+            swap(plane, cell, from + (int) ((myRandom.nextLong(cell, insertDraw) >>> 1) % (cell - from + 1)));
+        }
+    }
+
+    private static void swap(byte[] plane, int cell, int other){
+        byte state = plane[cell];
+        plane[cell] = plane[other];
+        plane[other] = state;
+    }
+
+    //draws a band of cells, splitting it in halves until it is small enough
+    @SuppressWarnings("serial")
+    private class DrawTask extends RecursiveAction {
+        private final byte[] myPlane;
+        private final int myFrom;
+        private final int myTo;
+
+        DrawTask(byte[] plane, int from, int to){
+            myPlane = plane;
+            myFrom = from;
+            myTo = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(myTo - myFrom <= DRAW_BAND_CELLS){
+                draw(myPlane, myFrom, myTo);
+                return;
+            }
+            int middle = (myFrom + myTo) >>> 1;
+            invokeAll(new DrawTask(myPlane, myFrom, middle), new DrawTask(myPlane, middle, myTo));
+        }
+    }
+
+    //shuffles both halves of a band of cells and merges them, or the band itself once it is small enough
+    @SuppressWarnings("serial")
+    private class ShuffleTask extends RecursiveAction {
+        private final byte[] myPlane;
+        private final int myFrom;
+        private final int myTo;
+        private final int myDepth;
+
+        ShuffleTask(byte[] plane, int from, int to, int depth){
+            myPlane = plane;
+            myFrom = from;
+            myTo = to;
+            myDepth = depth;
+        }
+
+        @Override
+        protected void compute(){
+            if(myTo - myFrom <= SHUFFLE_BAND_CELLS){
+                shuffle(myPlane, myFrom, myTo);
+                return;
+            }
+            int middle = (myFrom + myTo) >>> 1;
+            invokeAll(new ShuffleTask(myPlane, myFrom, middle, myDepth + 1),
+                    new ShuffleTask(myPlane, middle, myTo, myDepth + 1));
+            merge(myPlane, myFrom, middle, myTo, myDepth);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package CellSociety.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parameters of a simulation model, shared between the UI's parameter sliders and the rule stepping the
+ * grid on another thread. The values are kept in a primitive array that is never modified once published:
+ * set() publishes a modified copy together with a new version number through a volatile field, so a reader
+ * always sees a complete set of values. Rules compare the version once per generation and only read the values
+ * again when it changed, so stepping neither unboxes nor allocates anything for the parameters.
+ */
+public final class ParameterBlock {
+    private volatile Values myValues;
+
+    /**
+     * @param values initial values of the parameters, in the order of the XML file
+     */
+    public ParameterBlock(List<Double> values){
+        double[] initial = new double[values.size()];
+        for(int i = 0; i < initial.length; i++){
+            initial[i] = values.get(i);
+        }
+        myValues = new Values(initial, 0);
+    }
+
+    /**
+     * @param index position of the parameter
+     * @return its current value
+     */
+    public double get(int index){
+        return myValues.myValues[index];
+    }
+
+    /**
+     * @return number of parameters
+     */
+    public int size(){
+        return myValues.myValues.length;
+    }
+
+    /**
+     * @return number of changes made by set() so far; the values only change together with it
+     */
+    public long getVersion(){
+        return myValues.myVersion;
+    }
+
+    /**
+     * Changes a parameter, e.g. when a slider moves; the rule reads it from its next generation on
+     * @param index position of the parameter
+     * @param value its new value
+     */
+    public synchronized void set(int index, double value){
+        Values current = myValues;
+        double[] values = current.myValues.clone();
+        values[index] = value;
+        myValues = new Values(values, current.myVersion + 1);
+    }
+
+    /**
+     * @return copy of the current values, e.g. to save them in a GridSnapshot
+     */
+    public List<Double> toList(){
+        double[] values = myValues.myValues;
+        List<Double> list = new ArrayList<>(values.length);
+        for(double value : values){
+            list.add(value);
+        }
+        return list;
+    }
+
+    //a version of the values, published as a whole
+    private static final class Values {
+        private final double[] myValues;
+        private final long myVersion;
+
+        Values(double[] values, long version){
+            myValues = values;
+            myVersion = version;
+        }
+    }
+}
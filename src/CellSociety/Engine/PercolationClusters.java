@@ -0,0 +1,203 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * Clusters of connected open cells of a Percolation grid, found with a weighted union-find over the grid's
+ * NeighborTable, so its cell shape, neighbor indexes and edge type. Open and Percolated cells are joined
+ * with their open and percolated neighbors; the union by size and path halving make finding all clusters
+ * take close to linear time.
+ *
+ * This answers in one pass what the simulation only shows after as many generations as the longest path
+ * percolation has to take: whether some cluster spans the grid from its first to its last row, and which
+ * open cells are reached from the Percolated cells, i.e. what the grid settles to. Clusters join two cells
+ * if either is a neighbor of the other, which is how percolation spreads whenever neighborhoods go both
+ * ways (e.g. any neighbor indexes of square cells that include each direction's opposite).
+ *
+ * On a toroidal grid the first and the last row are neighbors, so a cluster touching both does not have to
+ * cross the grid. Spanning is then decided on a second union-find that leaves out the links across that
+ * seam, i.e. on the grid wrapped around horizontally only, as percolation thresholds are usually defined.
+ */
+public class PercolationClusters {
+    private static final String OPEN = "Open";
+    private static final String PERCOLATED = "Percolated";
+    private static final byte TOUCHES_TOP = 1;
+    private static final byte TOUCHES_BOTTOM = 2;
+    private static final byte HAS_SOURCE = 4;
+    private static final byte SPANS = TOUCHES_TOP | TOUCHES_BOTTOM;
+
+    private final StateGrid myGrid;
+    private final byte myOpen;
+    private final byte myPercolated;
+    //parent of every cell, or minus the size of its cluster for the root of a cluster
+    private final int[] myParents;
+    //the same without the links between the first and the last row of a toroidal grid
+    private final int[] mySpanParents;
+    //HAS_SOURCE bits of the roots of myParents, and TOUCHES_TOP and TOUCHES_BOTTOM bits of those of mySpanParents
+    private final byte[] myFlags;
+    private int myNumClusters;
+    private int myLargest;
+    private int myNumReached;
+    private boolean isSpanning;
+
+    /**
+     * Finds the clusters of the current states of the grid
+     * @param grid StateGrid of the Percolation model
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Open, Blocked and Percolated states
+     */
+    public PercolationClusters(StateGrid grid, NeighborTable neighbors, StateDictionary states){
+        myGrid = grid;
+        myOpen = states.codeOf(OPEN);
+        myPercolated = states.codeOf(PERCOLATED);
+        myFlags = new byte[grid.size()];
+        myParents = join(neighbors, false);
+        mySpanParents = neighbors.isToroidal() ? join(neighbors, true) : myParents;
+        summarize();
+    }
+
+    //unites every passable cell with its passable neighbors, optionally except across the top and bottom edges
+    private int[] join(NeighborTable neighbors, boolean skipWrap){
+        int[] offsets = neighbors.getOffsets();
+        int[] cells = neighbors.getNeighbors();
+        int[] parents = new int[myGrid.size()];
+        for(int cell = 0; cell < parents.length; cell++){
+            parents[cell] = -1;
+        }
+        for(int cell = 0; cell < parents.length; cell++){
+            if(!isPassable(cell)){
+                continue;
+            }
+            for(int k = offsets[cell]; k < offsets[cell + 1]; k++){
+                if(isPassable(cells[k]) && !(skipWrap && isWrap(cell, cells[k]))){
+                    union(parents, cell, cells[k]);
+                }
+            }
+        }
+        return parents;
+    }
+
+    //neighbors are at most one row apart, unless the link wraps around from the last row to the first
+    private boolean isWrap(int cell, int neighbor){
+        return Math.abs(myGrid.getRow(cell) - myGrid.getRow(neighbor)) > 1;
+    }
+
+    //collects the flags, sizes and number of the clusters
+    private void summarize(){
+        int lastRow = myGrid.getRows() - 1;
+        for(int cell = 0; cell < myParents.length; cell++){
+            if(!isPassable(cell)){
+                continue;
+            }
+            int row = myGrid.getRow(cell);
+            myFlags[find(mySpanParents, cell)] |= (row == 0 ? TOUCHES_TOP : 0) | (row == lastRow ? TOUCHES_BOTTOM : 0);
+            if(myGrid.getState(cell) == myPercolated){
+                myFlags[find(myParents, cell)] |= HAS_SOURCE;
+            }
+        }
+        for(int cell = 0; cell < myParents.length; cell++){
+            if(!isPassable(cell)){
+                continue;
+            }
+            if(mySpanParents[cell] < 0 && (myFlags[cell] & SPANS) == SPANS){
+                isSpanning = true;
+            }
+            if(myParents[cell] >= 0){
+                continue;
+            }
+            int size = -myParents[cell];
+            myNumClusters++;
+            myLargest = Math.max(myLargest, size);
+            if((myFlags[cell] & HAS_SOURCE) != 0){
+                myNumReached += size;
+            }
+        }
+    }
+
+    private boolean isPassable(int cell){
+        byte state = myGrid.getState(cell);
+        return state == myOpen || state == myPercolated;
+    }
+
+    //root of the cell's cluster, pointing every visited cell at its grandparent on the way
+    private static int find(int[] parents, int cell){
+        while(parents[cell] >= 0){
+            int parent = parents[cell];
+            if(parents[parent] >= 0){
+                parents[cell] = parents[parent];
+            }
+            cell = parent;
+        }
+        return cell;
+    }
+
+    //joins the clusters of two cells, hanging the smaller one under the root of the larger one
+    private static void union(int[] parents, int cell, int other){
+        int root = find(parents, cell);
+        int otherRoot = find(parents, other);
+        if(root == otherRoot){
+            return;
+        }
+        if(parents[root] > parents[otherRoot]){
+            int swap = root;
+            root = otherRoot;
+            otherRoot = swap;
+        }
+        parents[root] += parents[otherRoot];
+        parents[otherRoot] = root;
+    }
+
+    /**
+     * @return true if a cluster of open or percolated cells connects the first and the last row of the grid,
+     * not counting the links between those rows of a toroidal grid
+     */
+    public boolean isSpanning(){
+        return isSpanning;
+    }
+
+    /**
+     * @return number of clusters of open or percolated cells
+     */
+    public int getNumClusters(){
+        return myNumClusters;
+    }
+
+    /**
+     * @return number of cells in the largest cluster, or 0 if every cell is blocked
+     */
+    public int getLargestCluster(){
+        return myLargest;
+    }
+
+    /**
+     * @return number of open or percolated cells in clusters containing a Percolated cell, which is the number
+     * of Percolated cells once the simulation has settled
+     */
+    public int getNumReached(){
+        return myNumReached;
+    }
+
+    /**
+     * @param cell flat index of the cell
+     * @return true if the cell is open or percolated and in a cluster containing a Percolated cell
+     */
+    public boolean isReached(int cell){
+        return isPassable(cell) && (myFlags[find(myParents, cell)] & HAS_SOURCE) != 0;
+    }
+
+    /**
+     * Sets every open cell reached from a Percolated cell to Percolated, which is the state the simulation
+     * settles to. The states are set directly on the grid, so GridEngine.invalidate() has to be called after.
+     * @return number of cells that percolated
+     */
+    public int percolate(){
+        int changed = 0;
+        for(int cell = 0; cell < myParents.length; cell++){
+            if(myGrid.getState(cell) == myOpen && isReached(cell)){
+                myGrid.setState(cell, myPercolated);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
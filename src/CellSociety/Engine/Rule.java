@@ -0,0 +1,190 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * The rules of a simulation model, applied to a StateGrid by a GridEngine.
+ * This is the byte-coded counterpart of the concrete Cell classes: findNextState() is called for every
+ * cell of the grid with its flat index and has to set that cell's next state in the next plane.
+ *
+ * Rules that only ever write the next state of the cell they are called for, based on the current
+ * states of that cell and its neighbors, are local. Rules that claim other cells (e.g. animals moving
+ * into empty cells) have to override isLocal() to return false; their next plane is reset to
+ * StateDictionary.UNSET before every generation so that claims can be detected.
+ *
+ * Rules whose cells depend on each other's decisions can instead split a generation into phases (see
+ * getNumPhases()): findNextState() is called for every cell once per phase, and a phase only starts once
+ * the previous one is done for every cell. Rules that only ever write the data of the cell they are called
+ * for in every phase, e.g. proposals in one phase and their resolution in the next, are local as well.
+ *
+ * Local rules under which a cell keeps its state whenever neither it nor any of its neighbors changed
+ * in the last generation can override isIncremental() to return true. The engine then only calls
+ * findNextState() for cells next to the last generation's changes, and the next plane of other cells
+ * is left stale.
+ *
+ * Rules draw their random numbers from myRandom, keyed by the cell and the number of the draw within it
+ * (see CellRandom), so that a seeded run is reproduced exactly whichever cells are evaluated in parallel.
+ */
+abstract public class Rule {
+    protected StateGrid myGrid;
+    protected StateDictionary myStates;
+    protected ParameterBlock myParams;
+    protected CellRandom myRandom;
+    //version of myParams last read by setParams()
+    private long myParamsVersion;
+
+    protected byte[] myCurrent;
+    protected byte[] myNext;
+    protected int[] myNeighborOffsets;
+    protected int[] myNeighbors;
+    //true while findNextState() is called from several threads at once
+    protected boolean isConcurrent;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary used to look up the codes of the model's states
+     * @param parameters ParameterBlock containing any extra parameters needed e.g. probability
+     *                   of catching fire; setParams() is called again whenever the UI modifies it
+     */
+    protected Rule(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        myGrid = grid;
+        myStates = states;
+        myParams = parameters;
+        myParamsVersion = parameters.getVersion();
+        myRandom = new CellRandom(CellRandom.newSeed());
+        myNeighborOffsets = neighbors.getOffsets();
+        myNeighbors = neighbors.getNeighbors();
+    }
+
+    /**
+     * Called once before findNextState() is called on the cells of a generation
+     * @param generation number of the generation whose next states are found, which selects the random numbers
+     */
+    public void startGeneration(long generation){
+        myRandom.setGeneration(generation);
+        myCurrent = myGrid.getCurrentPlane();
+        myNext = myGrid.getNextPlane();
+        long version = myParams.getVersion();
+        if(version != myParamsVersion){
+            myParamsVersion = version;
+            setParams();
+        }
+        if(!isLocal()){
+            myGrid.clearNext();
+        }
+    }
+
+    /**
+     * Number of times findNextState() is called for every cell in a generation. Defaults to one.
+     * @return number of phases of a generation
+     */
+    public int getNumPhases(){
+        return 1;
+    }
+
+    /**
+     * Called before findNextState() is called on the cells in a phase of a generation. Defaults to doing nothing.
+     * @param phase number of the phase, from 0 up to getNumPhases() - 1
+     */
+    public void startPhase(int phase){
+        return;
+    }
+
+    /**
+     * Called by the engine before the cells of a phase are stepped
+     * @param concurrent true if findNextState() is about to be called from several threads at once
+     */
+    void setConcurrent(boolean concurrent){
+        isConcurrent = concurrent;
+    }
+
+    /**
+     * Uses the cell's neighbors and the rules to determine what its next state should be
+     * @param cell flat index of the cell in the grid
+     */
+    abstract public void findNextState(int cell);
+
+    /**
+     * Called once after the next plane of a generation has been made current.
+     * Rules keeping extra per-cell data (e.g. energy) swap it here.
+     */
+    public void endGeneration(){
+        return;
+    }
+
+    /**
+     * @return true if findNextState() only writes the next state of the cell it is called for
+     */
+    public boolean isLocal(){
+        return true;
+    }
+
+    /**
+     * @return true if the rule is local and a cell whose own and neighbors' states did not change in the
+     * last generation keeps its state, so that only cells next to changes need to be evaluated
+     */
+    public boolean isIncremental(){
+        return false;
+    }
+
+    /**
+     * Called after the user switched the state of a cell so that any extra per-cell data can be reset.
+     * Defaults to doing nothing.
+     * @param cell flat index of the cell
+     */
+    public void userSwitchedState(int cell){
+        return;
+    }
+
+    /**
+     * Per-cell data the rule keeps besides the states, saved and restored with GridSnapshots.
+     * The arrays are the rule's current planes, indexed by flat cell index, or copies of them for rules that
+     * keep the data in other types; they may be replaced every generation. Defaults to none.
+     * @return the current per-cell planes of the rule
+     */
+    public double[][] getCellData(){
+        return new double[0][];
+    }
+
+    /**
+     * Restores per-cell data saved from getCellData(). Defaults to copying it into the arrays of getCellData().
+     * @param cellData per-cell planes indexed by flat cell index
+     */
+    public void setCellData(double[][] cellData){
+        double[][] planes = getCellData();
+        for(int i = 0; i < Math.min(planes.length, cellData.length); i++){
+            System.arraycopy(cellData[i], 0, planes[i], 0, planes[i].length);
+        }
+    }
+
+    /**
+     * @return the parameters the rule reads, which the UI can modify while the simulation runs
+     */
+    public ParameterBlock getParameters(){
+        return myParams;
+    }
+
+    /**
+     * @param seed seed of the simulation's random numbers, replacing the one drawn when the rule was created
+     */
+    public void setSeed(long seed){
+        myRandom = new CellRandom(seed);
+    }
+
+    /**
+     * @return seed of the simulation's random numbers
+     */
+    public long getSeed(){
+        return myRandom.getSeed();
+    }
+
+    /**
+     * Reads the parameters of the simulation, once when the rule is created and again at the start of every
+     * generation after they changed. It defaults to not reading anything, as several of the simulations do
+     * not have parameters.
+     */
+    protected void setParams(){
+        return;
+    }
+}
@@ -0,0 +1,83 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * Rules of the Fire simulation applied to a StateGrid.
+ * Burning cells burn out, and every burning neighbor of a tree has a chance of setting it on fire.
+ * Each burning neighbor draws its own random number, keyed by its position among the tree's neighbors,
+ * so bands of rows burn in parallel with the same result as serially.
+ */
+public class RuleFire extends Rule {
+    private static final String BURNING = "Burning";
+    private static final String TREE = "Tree";
+    private static final String EMPTY = "Empty";
+
+    private final byte myBurning;
+    private final byte myTree;
+    private final byte myEmpty;
+
+    private double myProbBurning;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Burning, Tree and Empty states
+     * @param parameters ParameterBlock containing the probability of a tree catching on fire
+     */
+    public RuleFire(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myBurning = states.codeOf(BURNING);
+        myTree = states.codeOf(TREE);
+        myEmpty = states.codeOf(EMPTY);
+        setParams();
+    }
+
+    /**
+     * Sets the parameters of the simulation.
+     */
+    @Override
+    protected void setParams(){
+        myProbBurning = myParams.get(0);
+    }
+
+    /**
+     * Looks at the cell's neighbors' states and determines its next state according to that and
+     * its rules for burning.
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        byte state = myCurrent[cell];
+        if(state == myTree){
+            myNext[cell] = checkNeighborsAndBurning(cell);
+        }
+        else if(state == myBurning){
+            myNext[cell] = myEmpty;
+        }
+        else{
+            myNext[cell] = state;
+        }
+    }
+
+    //every burning neighbor gets a chance to set the tree on fire
+    private byte checkNeighborsAndBurning(int cell) {
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(myCurrent[myNeighbors[k]] == myBurning
+                    && myRandom.nextFloat(cell, k - myNeighborOffsets[cell]) < myProbBurning){
+                return myBurning;
+            }
+        }
+        return myTree;
+    }
+
+    /**
+     * Trees only catch fire from burning neighbors, which burn out after one generation
+     * and so have always just changed.
+     * @return true
+     */
+    @Override
+    public boolean isIncremental(){
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * Rules of the Game of Life simulation applied to a StateGrid.
+ * A live cell survives with two or three live neighbors, a dead cell comes alive with exactly three.
+ */
+public class RuleGameOfLife extends Rule {
+    private static final String DEAD = "Dead";
+    private static final String ALIVE = "Alive";
+
+    private final byte myDead;
+    private final byte myAlive;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Dead and Alive states
+     * @param parameters empty ParameterBlock that is not needed for this model
+     */
+    public RuleGameOfLife(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myDead = states.codeOf(DEAD);
+        myAlive = states.codeOf(ALIVE);
+    }
+
+    /**
+     * Counts the alive neighbors of the cell and determines whether it lives in the next generation
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        int numNeighborsAlive = 0;
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(myCurrent[myNeighbors[k]] == myAlive){
+                numNeighborsAlive++;
+            }
+        }
+        if(numNeighborsAlive == 3 || (numNeighborsAlive == 2 && myCurrent[cell] == myAlive)){
+            myNext[cell] = myAlive;
+        }
+        else{
+            myNext[cell] = myDead;
+        }
+    }
+
+    /**
+     * Cells only come alive or die when their number of alive neighbors changes.
+     * @return true
+     */
+    @Override
+    public boolean isIncremental(){
+        return true;
+    }
+}
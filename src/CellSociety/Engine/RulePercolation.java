@@ -0,0 +1,61 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * Rules of the Percolation simulation applied to a StateGrid.
+ * An open cell percolates once any of its neighbors has percolated.
+ */
+public class RulePercolation extends Rule {
+    private static final String OPEN = "Open";
+    private static final String PERCOLATED = "Percolated";
+
+    private final byte myOpen;
+    private final byte myPercolated;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Open, Blocked and Percolated states
+     * @param parameters empty ParameterBlock that is not needed for this model
+     */
+    public RulePercolation(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myOpen = states.codeOf(OPEN);
+        myPercolated = states.codeOf(PERCOLATED);
+    }
+
+    /**
+     * Finds and sets the next state of the cell by checking neighbors
+     * and following the rules set.
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        if(myCurrent[cell] == myOpen){
+            myNext[cell] = checkNeighborsAndPercolate(cell);
+        }
+        else{
+            myNext[cell] = myCurrent[cell];
+        }
+    }
+
+    //an open cell percolates if any neighbor has
+    private byte checkNeighborsAndPercolate(int cell) {
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(myCurrent[myNeighbors[k]] == myPercolated){
+                return myPercolated;
+            }
+        }
+        return myOpen;
+    }
+
+    /**
+     * Open cells only percolate when a neighbor has just percolated.
+     * @return true
+     */
+    @Override
+    public boolean isIncremental(){
+        return true;
+    }
+}
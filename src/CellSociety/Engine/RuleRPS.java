@@ -0,0 +1,135 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+/**
+ * Rules of the Rock Paper Scissors simulation applied to a StateGrid, generalized to any number of species.
+ * Every state other than White is a species, and the species form a cycle in the order of the XML file:
+ * each one eats the (number of species - 1) / 2 species before it, wrapping around, and everything eats white.
+ * With Red, Green and Blue this is the original game (green eats red, blue eats green, red eats blue); five
+ * species listed as Rock, Spock, Paper, Lizard, Scissors give rock-paper-scissors-lizard-Spock.
+ * A cell whose next state has already been set was eaten by a neighbor and cannot eat in this step.
+ *
+ * Who eats whom is looked up in a table of the outcomes of every pair of states, built once from the cycle.
+ */
+public class RuleRPS extends Rule {
+    private static final String WHITE = "White";
+
+    private final byte myWhite;
+    private final int myNumStates;
+    //compare() of every pair of states, indexed by first state * number of states + second state
+    private final byte[] myOutcomes;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the White state and at least two species
+     * @param parameters empty ParameterBlock that is not needed for this model
+     */
+    public RuleRPS(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myWhite = states.codeOf(WHITE);
+        myNumStates = states.size();
+        myOutcomes = new byte[myNumStates * myNumStates];
+        buildOutcomes();
+    }
+
+    //fills the table from the cycle of species, the states other than White in the order of their codes
+    private void buildOutcomes(){
+        byte[] species = new byte[myNumStates - 1];
+        int numSpecies = 0;
+        for(byte state = 0; state < myNumStates; state++){
+            if(state != myWhite){
+                species[numSpecies++] = state;
+            }
+        }
+        int numEaten = (numSpecies - 1) / 2;
+        for(int i = 0; i < numSpecies; i++){
+            for(int back = 1; back <= numEaten; back++){
+                setOutcome(species[i], species[(i - back + numSpecies) % numSpecies]);
+            }
+            setOutcome(species[i], myWhite);
+        }
+    }
+
+    private void setOutcome(byte winner, byte loser){
+        myOutcomes[winner * myNumStates + loser] = 1;
+        myOutcomes[loser * myNumStates + winner] = -1;
+    }
+
+    /**
+     * Cells eat their neighbors, so this rule is not local
+     * @return false
+     */
+    @Override
+    public boolean isLocal(){
+        return false;
+    }
+
+    /**
+     * Picks a random uneaten neighbor and lets the winner of the two take over both cells
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        //next state already been set
+        if(myNext[cell] != StateDictionary.UNSET){
+            return;
+        }
+        int neighbor = pickUneatenNeighbor(cell);
+        byte state = myCurrent[cell];
+        if(neighbor < 0){
+            myNext[cell] = state;
+            return;
+        }
+        byte neighborState = myCurrent[neighbor];
+        int result = compare(state, neighborState);
+        //current cell eats neighbor
+        if(result == 1){
+            myNext[neighbor] = state;
+            myNext[cell] = state;
+        }
+        //neighbor eats current cell
+        else if(result == -1){
+            myNext[cell] = neighborState;
+        }
+        else{
+            myNext[cell] = state;
+        }
+    }
+
+    //picks a random neighbor that has not been eaten, or returns -1 if there is none
+    private int pickUneatenNeighbor(int cell){
+        int numUneaten = 0;
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(isUneaten(myNeighbors[k])){
+                numUneaten++;
+            }
+        }
+        if(numUneaten == 0){
+            return -1;
+        }
+        int pick = myRandom.nextInt(cell, 0, numUneaten);
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(isUneaten(myNeighbors[k]) && pick-- == 0){
+                return myNeighbors[k];
+            }
+        }
+        return -1;
+    }
+
+    private boolean isUneaten(int cell){
+        return myNext[cell] == StateDictionary.UNSET || myNext[cell] == myWhite;
+    }
+
+    /**
+     * Used to compare the states of two cells.
+     * Each species eats the (number of species - 1) / 2 species before it, and everything eats white.
+     * @param s1 byte code of the state to compare
+     * @param s2 byte code of the state to compare
+     * @return int of -1 if the s2 is great, 1 if s1 is greater, and 0 if they are equal or neither eats the other
+     */
+    public int compare(byte s1, byte s2){
+        return myOutcomes[s1 * myNumStates + s2];
+    }
+}
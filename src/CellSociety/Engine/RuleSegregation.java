@@ -0,0 +1,264 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+import java.util.Arrays;
+
+/**
+ * Rules of the Segregation simulation applied to a StateGrid.
+ * An agent whose fraction of same-group neighbors is below the threshold moves to an empty cell no other
+ * agent claimed in the generation: with the probability of the second parameter the nearest one, by steps
+ * through neighbors, where it would be satisfied, and otherwise (or if the search finds none) one picked
+ * uniformly at random. Whether a vacancy satisfies an agent only counts the neighbors that stay, so agents
+ * don't keep chasing each other between vacancies that are just as bad. The search is deterministic though,
+ * so a chance of 1 may still leave a few agents moving in a cycle; models without the parameter move at
+ * random, and a chance just below 1 settles fastest.
+ *
+ * The rule keeps the empty, unclaimed cells in a CellSet and the number of neighbors of each group for
+ * every cell, both updated by the moves of a generation once it is committed. So finding whether an agent
+ * is satisfied and where it moves to does not depend on the size of the grid, apart from the bounded
+ * search for the nearest vacancy.
+ */
+public class RuleSegregation extends Rule {
+    private static final String GROUP1 = "Group1";
+    private static final String GROUP2 = "Group2";
+    private static final String EMPTY = "Empty";
+    private static final int NO_CELL = -1;
+    //chance of moving to the nearest vacancy in models without the second parameter
+    private static final double DEFAULT_NEAREST_CHANCE = 0;
+    //cells the search for the nearest vacancy visits before a random vacancy is taken instead
+    private static final int MAX_SEARCHED = 1024;
+
+    //draws of a cell's random numbers in a generation
+    private static final int NEAREST_DRAW = 0;
+    private static final int VACANCY_DRAW = 1;
+
+    private final byte myGroup1;
+    private final byte myGroup2;
+    private final byte myEmpty;
+
+    private double myThreshold;
+    private double myNearestChance;
+
+    //cells having each cell as a neighbor, whose counts change when an agent enters or leaves it
+    private final int[] myDependentOffsets;
+    private final int[] myDependents;
+    private final short[] myGroup1Neighbors;
+    private final short[] myGroup2Neighbors;
+    //empty cells not claimed in the current generation
+    private final CellSet myVacancies;
+    //moves of the current generation, applied to the counts and vacancies in endGeneration()
+    private final int[] myMovedFrom;
+    private final int[] myMovedTo;
+    private int myNumMoves;
+    //breadth-first search for the nearest vacancy, marking visited cells with the number of the search
+    private final int[] mySearchQueue;
+    private final int[] myVisited;
+    private int mySearch;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Group1, Group2 and Empty states
+     * @param parameters ParameterBlock with the threshold frequency as a decimal value, and optionally
+     *                   the chance that an unsatisfied agent moves to the nearest empty cell rather than
+     *                   a random one (1 if absent)
+     */
+    public RuleSegregation(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myGroup1 = states.codeOf(GROUP1);
+        myGroup2 = states.codeOf(GROUP2);
+        myEmpty = states.codeOf(EMPTY);
+        setParams();
+
+        int size = grid.size();
+        NeighborTable dependents = neighbors.getReverse();
+        myDependentOffsets = dependents.getOffsets();
+        myDependents = dependents.getNeighbors();
+        myGroup1Neighbors = new short[size];
+        myGroup2Neighbors = new short[size];
+        myVacancies = new CellSet(size);
+        myMovedFrom = new int[size];
+        myMovedTo = new int[size];
+        mySearchQueue = new int[Math.min(size, MAX_SEARCHED)];
+        myVisited = new int[size];
+        indexGrid();
+    }
+
+    /**
+     * Sets the parameters of the simulation.
+     */
+    @Override
+    protected void setParams(){
+        myThreshold = myParams.get(0);
+        myNearestChance = myParams.size() > 1 ? myParams.get(1) : DEFAULT_NEAREST_CHANCE;
+    }
+
+    /**
+     * Agents claim empty cells of other agents, so this rule is not local
+     * @return false
+     */
+    @Override
+    public boolean isLocal(){
+        return false;
+    }
+
+    /**
+     * Finds and sets the next state of the cell by checking neighbors
+     * and following the rules set.
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        //if it's nextstate has already been set externally by another cell
+        if(myNext[cell] != StateDictionary.UNSET){
+            return;
+        }
+        if(myCurrent[cell] == myEmpty){
+            myNext[cell] = myEmpty;
+            return;
+        }
+        if(calcSatisfaction(cell) >= myThreshold || myVacancies.size() == 0){
+            myNext[cell] = myCurrent[cell];
+        }
+        else{
+            moveToVacancy(cell);
+        }
+    }
+
+    /**
+     * Applies the moves of the generation to the neighbor counts, and makes the cells the agents left vacant
+     */
+    @Override
+    public void endGeneration(){
+        for(int i = 0; i < myNumMoves; i++){
+            byte group = myGrid.getState(myMovedTo[i]);
+            countNeighbor(myMovedFrom[i], group, -1);
+            countNeighbor(myMovedTo[i], group, 1);
+            myVacancies.add(myMovedFrom[i]);
+        }
+        myNumMoves = 0;
+    }
+
+    /**
+     * Recounts the neighbors and vacancies of the grid
+     * @param cell flat index of the cell
+     */
+    @Override
+    public void userSwitchedState(int cell){
+        indexGrid();
+    }
+
+    //counts the neighbors of every cell and collects the empty cells of the grid
+    private void indexGrid(){
+        Arrays.fill(myGroup1Neighbors, (short) 0);
+        Arrays.fill(myGroup2Neighbors, (short) 0);
+        myVacancies.clear();
+        myNumMoves = 0;
+        for(int cell = 0; cell < myGrid.size(); cell++){
+            byte state = myGrid.getState(cell);
+            if(state == myEmpty){
+                myVacancies.add(cell);
+            }
+            else{
+                countNeighbor(cell, state, 1);
+            }
+        }
+    }
+
+    //adds the change of an agent of the group entering (1) or leaving (-1) the cell to its dependents' counts
+    private void countNeighbor(int cell, byte group, int change){
+        short[] counts = group == myGroup1 ? myGroup1Neighbors : group == myGroup2 ? myGroup2Neighbors : null;
+        if(counts == null){
+            return;
+        }
+        for(int k = myDependentOffsets[cell]; k < myDependentOffsets[cell + 1]; k++){
+            counts[myDependents[k]] += change;
+        }
+    }
+
+    //claims the nearest or a random vacancy for the agent of the cell
+    private void moveToVacancy(int cell){
+        int target = NO_CELL;
+        if(myRandom.nextFloat(cell, NEAREST_DRAW) < myNearestChance){
+            target = findNearestVacancy(cell);
+        }
+        if(target == NO_CELL){
+            target = myVacancies.get(myRandom.nextInt(cell, VACANCY_DRAW, myVacancies.size()));
+        }
+        myVacancies.remove(target);
+        myNext[target] = myCurrent[cell];
+        myNext[cell] = myEmpty;
+        myMovedFrom[myNumMoves] = cell;
+        myMovedTo[myNumMoves++] = target;
+    }
+
+    //searches the neighbors breadth-first for a vacancy where the agent would be satisfied, giving up with
+    //NO_CELL after MAX_SEARCHED cells
+    private int findNearestVacancy(int cell){
+        startSearch();
+        int head = 0;
+        int tail = 0;
+        mySearchQueue[tail++] = cell;
+        myVisited[cell] = mySearch;
+        while(head < tail){
+            int visited = mySearchQueue[head++];
+            for(int k = myNeighborOffsets[visited]; k < myNeighborOffsets[visited + 1]; k++){
+                int neighbor = myNeighbors[k];
+                if(myVisited[neighbor] == mySearch){
+                    continue;
+                }
+                if(myVacancies.contains(neighbor) && isSatisfiedAt(cell, neighbor)){
+                    return neighbor;
+                }
+                if(tail == mySearchQueue.length){
+                    return NO_CELL;
+                }
+                myVisited[neighbor] = mySearch;
+                mySearchQueue[tail++] = neighbor;
+            }
+        }
+        return NO_CELL;
+    }
+
+    //numbers the next search, clearing the marks once the numbers wrap around
+    private void startSearch(){
+        mySearch++;
+        if(mySearch == 0){
+            Arrays.fill(myVisited, 0);
+            mySearch = 1;
+        }
+    }
+
+    //calculates the fraction of the cell's group among its non-empty neighbors
+    private double calcSatisfaction(int cell) {
+        return calcSatisfaction(myCurrent[cell], myGroup1Neighbors[cell], myGroup2Neighbors[cell]);
+    }
+
+    //whether the agent of the cell would be satisfied in the vacancy, counting only the neighbors of the vacancy
+    //that are satisfied themselves: unsatisfied ones move away in the same generation, and agents settling next
+    //to them would keep chasing each other
+    private boolean isSatisfiedAt(int cell, int vacancy){
+        int same = 0;
+        int tot = 0;
+        for(int k = myNeighborOffsets[vacancy]; k < myNeighborOffsets[vacancy + 1]; k++){
+            int neighbor = myNeighbors[k];
+            if(neighbor == cell || myCurrent[neighbor] == myEmpty || calcSatisfaction(neighbor) < myThreshold){
+                continue;
+            }
+            tot++;
+            if(myCurrent[neighbor] == myCurrent[cell]){
+                same++;
+            }
+        }
+        return tot > 0 && (double) same / tot >= myThreshold;
+    }
+
+    private double calcSatisfaction(byte group, int numPop1, int numPop2){
+        int tot = numPop1 + numPop2;
+        if(tot == 0){
+            return 0.0;
+        }
+        return (double) (group == myGroup1 ? numPop1 : numPop2) / tot;
+    }
+}
@@ -0,0 +1,358 @@
+package CellSociety.Engine;
+
+import CellSociety.Neighbors.NeighborTable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Rules of the WATOR simulation applied to a StateGrid.
+ * Fish move to a random empty neighbor; sharks eat a random fish neighbor or else move to a random
+ * empty neighbor, and die once they run out of energy. Animals that survived longer than their
+ * reproduction time leave a baby behind when they move.
+ *
+ * Moves are settled in phases rather than by animals claiming cells as they are visited, so the result
+ * does not depend on the order of the cells and every phase can run in parallel bands. First every shark
+ * reserves the cell it wants to move to, then every fish that was not eaten reserves an empty cell no shark
+ * reserved, and finally every cell pulls in the animal holding its reservation, or works out what its own
+ * animal leaves behind. A reservation keeps the proposing cell of highest priority, a random number of the
+ * cell, so collisions are settled fairly and in the same way whichever proposal comes first.
+ * Reservations are the only writes to other cells, and they are atomic while cells are stepped in parallel.
+ *
+ * The age (turns survived) and the energy of the animals are kept in double-buffered short and float
+ * planes that are swapped together with the state planes.
+ */
+public class RuleWATOR extends Rule {
+    private static final String FISH = "Fish";
+    private static final String SHARK = "Shark";
+    private static final String EMPTY = "Empty";
+    private static final int NO_CELL = -1;
+    //reservations hold the proposing cell plus one
+    private static final int NO_RESERVATION = 0;
+
+    private static final int PROPOSE_SHARKS = 0;
+    private static final int PROPOSE_FISH = 1;
+    private static final int NUM_PHASES = 3;
+
+    //draws of a cell's random numbers in a generation
+    private static final int FISH_DRAW = 0;
+    private static final int EMPTY_DRAW = 1;
+    private static final int PRIORITY_DRAW = 2;
+    private static final VarHandle RESERVATION = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final byte myFish;
+    private final byte myShark;
+    private final byte myEmpty;
+
+    private double myFishReproTime;
+    private double mySharkReproTime;
+    private double myNewSharkEnergy;
+    private double mySharkEatingEnergy;
+    private int myPhase;
+
+    private short[] myAge;
+    private short[] myNextAge;
+    private float[] myEnergy;
+    private float[] myNextEnergy;
+    //cell each animal proposes to move to, or NO_CELL
+    private final int[] myTarget;
+    //reservations of sharks, alternating every generation so the unused ones can be cleared, and of fish
+    private final int[][] mySharkReservations;
+    private int[] mySharkReserved;
+    private final int[] myFishReserved;
+    private int myParity;
+
+    /**
+     * @param grid StateGrid the rule is applied to
+     * @param neighbors NeighborTable of the grid
+     * @param states StateDictionary containing the Fish, Shark and Empty states
+     * @param parameters ParameterBlock containing the turns it takes for a fish to reproduce,
+     *                   the turns it takes for a shark to reproduce, the initial energy of a shark,
+     *                   and the energy a shark gets by eating a fish
+     */
+    public RuleWATOR(StateGrid grid, NeighborTable neighbors, StateDictionary states, ParameterBlock parameters){
+        super(grid, neighbors, states, parameters);
+        myFish = states.codeOf(FISH);
+        myShark = states.codeOf(SHARK);
+        myEmpty = states.codeOf(EMPTY);
+        setParams();
+
+        int size = grid.size();
+        myAge = new short[size];
+        myNextAge = new short[size];
+        myEnergy = new float[size];
+        myNextEnergy = new float[size];
+        myTarget = new int[size];
+        mySharkReservations = new int[2][size];
+        myFishReserved = new int[size];
+        for(int cell = 0; cell < size; cell++){
+            myEnergy[cell] = grid.getState(cell) == myShark ? (float) myNewSharkEnergy : 0;
+        }
+    }
+
+    //sets the parameters of the simulation
+    @Override
+    protected void setParams(){
+        myFishReproTime = myParams.get(0);
+        mySharkReproTime = myParams.get(1);
+        myNewSharkEnergy = myParams.get(2);
+        mySharkEatingEnergy = myParams.get(3);
+    }
+
+    /**
+     * Besides atomic reservations, every phase only writes the data of the cell it is called for,
+     * so the cells can be stepped in parallel
+     * @return true
+     */
+    @Override
+    public boolean isLocal(){
+        return true;
+    }
+
+    /**
+     * Selects the shark reservations of the generation
+     * @param generation number of the generation whose next states are found
+     */
+    @Override
+    public void startGeneration(long generation){
+        super.startGeneration(generation);
+        myParity = (int) (generation & 1);
+        mySharkReserved = mySharkReservations[myParity];
+    }
+
+    /**
+     * @return the phases of reserving the moves of sharks, reserving the moves of fish, and moving the animals
+     */
+    @Override
+    public int getNumPhases(){
+        return NUM_PHASES;
+    }
+
+    /**
+     * @param phase number of the phase whose findNextState() calls follow
+     */
+    @Override
+    public void startPhase(int phase){
+        myPhase = phase;
+    }
+
+    /**
+     * Takes the cell through the current phase of the generation
+     * @param cell flat index of the cell in the grid
+     */
+    @Override
+    public void findNextState(int cell) {
+        switch(myPhase){
+            case PROPOSE_SHARKS:
+                proposeShark(cell);
+                break;
+            case PROPOSE_FISH:
+                proposeFish(cell);
+                break;
+            default:
+                move(cell);
+        }
+    }
+
+    /**
+     * Makes the ages and energy of the next generation current
+     */
+    @Override
+    public void endGeneration(){
+        short[] age = myAge;
+        myAge = myNextAge;
+        myNextAge = age;
+        float[] energy = myEnergy;
+        myEnergy = myNextEnergy;
+        myNextEnergy = energy;
+    }
+
+    /**
+     * Resets the turns survived, and the energy if the cell became a shark
+     * @param cell flat index of the cell
+     */
+    @Override
+    public void userSwitchedState(int cell){
+        myAge[cell] = 0;
+        myEnergy[cell] = myGrid.getState(cell) == myShark ? (float) myNewSharkEnergy : 0;
+    }
+
+    /**
+     * @return copies of the turns survived and the energy of the animals in the current generation
+     */
+    @Override
+    public double[][] getCellData(){
+        double[][] cellData = new double[2][myAge.length];
+        for(int cell = 0; cell < myAge.length; cell++){
+            cellData[0][cell] = myAge[cell];
+            cellData[1][cell] = myEnergy[cell];
+        }
+        return cellData;
+    }
+
+    /**
+     * @param cellData the turns survived and the energy of the animals, e.g. read from a GridSnapshot
+     */
+    @Override
+    public void setCellData(double[][] cellData){
+        for(int cell = 0; cell < myAge.length; cell++){
+            myAge[cell] = cellData.length > 0 ? toAge(cellData[0][cell]) : 0;
+            myEnergy[cell] = cellData.length > 1 ? (float) cellData[1][cell] : 0;
+        }
+    }
+
+    //a living shark reserves a random fish neighbor to eat, or else a random empty neighbor
+    private void proposeShark(int cell){
+        //fish reservations of the last generation are not read before the next phase
+        if(myFishReserved[cell] != NO_RESERVATION){
+            myFishReserved[cell] = NO_RESERVATION;
+        }
+        if(myCurrent[cell] != myShark){
+            return;
+        }
+        int target = NO_CELL;
+        if(myEnergy[cell] > 0){
+            target = pickNeighbor(cell, myFish, false, FISH_DRAW);
+            if(target == NO_CELL){
+                target = pickNeighbor(cell, myEmpty, false, EMPTY_DRAW);
+            }
+        }
+        myTarget[cell] = target;
+        reserve(mySharkReserved, target, cell);
+    }
+
+    //a fish that was not eaten reserves a random empty neighbor that no shark reserved
+    private void proposeFish(int cell){
+        if(myCurrent[cell] != myFish){
+            return;
+        }
+        int target = mySharkReserved[cell] == NO_RESERVATION
+                ? pickNeighbor(cell, myEmpty, true, EMPTY_DRAW) : NO_CELL;
+        myTarget[cell] = target;
+        reserve(myFishReserved, target, cell);
+    }
+
+    //the cell pulls in the animal holding its reservation, or keeps, leaves a baby in or empties the cell
+    private void move(int cell){
+        //the shark reservations of the next generation are not read in this one
+        int[] nextReserved = mySharkReservations[1 - myParity];
+        if(nextReserved[cell] != NO_RESERVATION){
+            nextReserved[cell] = NO_RESERVATION;
+        }
+        int from = holder(mySharkReserved, cell);
+        if(from == NO_CELL){
+            from = holder(myFishReserved, cell);
+        }
+        if(from != NO_CELL){
+            arrive(cell, from);
+            return;
+        }
+        byte state = myCurrent[cell];
+        if(state == myEmpty || (state == myShark && myEnergy[cell] <= 0)){
+            leaveEmpty(cell);
+            return;
+        }
+        int target = myTarget[cell];
+        int age = myAge[cell] + 1;
+        if(target == NO_CELL || holder(state == myShark ? mySharkReserved : myFishReserved, target) != cell){
+            myNext[cell] = state;
+            myNextAge[cell] = toAge(age);
+            myNextEnergy[cell] = state == myShark ? myEnergy[cell] - 1 : 0;
+        }
+        else if(age > reproTime(state)){
+            myNext[cell] = state;
+            myNextAge[cell] = 0;
+            myNextEnergy[cell] = state == myShark ? (float) myNewSharkEnergy : 0;
+        }
+        else{
+            leaveEmpty(cell);
+        }
+    }
+
+    //moves the animal of another cell into the cell, eating the fish in it if the animal is a shark
+    private void arrive(int cell, int from){
+        byte animal = myCurrent[from];
+        int age = myAge[from] + 1;
+        myNext[cell] = animal;
+        //an animal leaving a baby behind starts counting again
+        myNextAge[cell] = age > reproTime(animal) ? 0 : toAge(age);
+        if(animal == myShark){
+            double eaten = myCurrent[cell] == myFish ? mySharkEatingEnergy : 0;
+            myNextEnergy[cell] = (float) (myEnergy[from] - 1 + eaten);
+        }
+        else{
+            myNextEnergy[cell] = 0;
+        }
+    }
+
+    private void leaveEmpty(int cell){
+        myNext[cell] = myEmpty;
+        myNextAge[cell] = 0;
+        myNextEnergy[cell] = 0;
+    }
+
+    private double reproTime(byte animal){
+        return animal == myShark ? mySharkReproTime : myFishReproTime;
+    }
+
+    private static short toAge(double age){
+        return (short) Math.min(age, Short.MAX_VALUE);
+    }
+
+    //keeps the proposing cell of the highest priority in the target's reservation
+    private void reserve(int[] reserved, int target, int cell){
+        if(target == NO_CELL){
+            return;
+        }
+        if(!isConcurrent){
+            if(reserved[target] == NO_RESERVATION || beats(cell, reserved[target] - 1)){
+                reserved[target] = cell + 1;
+            }
+            return;
+        }
+        int current = (int) RESERVATION.getVolatile(reserved, target);
+        while(current == NO_RESERVATION || beats(cell, current - 1)){
+            int witness = (int) RESERVATION.compareAndExchange(reserved, target, current, cell + 1);
+            if(witness == current){
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    //true if the proposal of the cell has a higher priority than the other's, or an equal one and a higher index
+    private boolean beats(int cell, int other){
+        long priority = myRandom.nextLong(cell, PRIORITY_DRAW);
+        long otherPriority = myRandom.nextLong(other, PRIORITY_DRAW);
+        return priority > otherPriority || (priority == otherPriority && cell > other);
+    }
+
+    //cell whose proposal holds the reservation of the cell, or NO_CELL
+    private static int holder(int[] reserved, int cell){
+        return reserved[cell] - 1;
+    }
+
+    //picks a random neighbor currently in the given state, only among cells no shark reserved if unreserved is true
+    private int pickNeighbor(int cell, byte state, boolean unreserved, int draw){
+        int numCandidates = 0;
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(isCandidate(myNeighbors[k], state, unreserved)){
+                numCandidates++;
+            }
+        }
+        if(numCandidates == 0){
+            return NO_CELL;
+        }
+        int pick = myRandom.nextInt(cell, draw, numCandidates);
+        for(int k = myNeighborOffsets[cell]; k < myNeighborOffsets[cell + 1]; k++){
+            if(isCandidate(myNeighbors[k], state, unreserved) && pick-- == 0){
+                return myNeighbors[k];
+            }
+        }
+        return NO_CELL;
+    }
+
+    private boolean isCandidate(int cell, byte state, boolean unreserved){
+        return myCurrent[cell] == state && (!unreserved || mySharkReserved[cell] == NO_RESERVATION);
+    }
+}
@@ -0,0 +1,81 @@
+package CellSociety.Engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the state names of a simulation (the StateName entries of its XML file) as small byte codes.
+ * Codes are handed out in the order the names are given, starting at 0, so a grid of states can be
+ * stored in a flat byte array and compared with == instead of String.equals().
+ */
+public class StateDictionary {
+    /**
+     * Code marking a cell whose next state has not been claimed yet in the current generation,
+     * the byte equivalent of the empty String used by Cell.
+     */
+    public static final byte UNSET = -1;
+    private static final int MAX_STATES = Byte.MAX_VALUE;
+
+    private final List<String> myNames;
+    private final Map<String, Byte> myCodes;
+
+    /**
+     * @param stateNames names of all valid states, in the order their codes should be assigned
+     */
+    public StateDictionary(Collection<String> stateNames){
+        if(stateNames.size() > MAX_STATES){
+            throw new IllegalArgumentException("Too many states: " + stateNames.size());
+        }
+        myNames = new ArrayList<>(stateNames);
+        myCodes = new HashMap<>();
+        for(int i = 0; i < myNames.size(); i++){
+            myCodes.put(myNames.get(i), (byte) i);
+        }
+    }
+
+    /**
+     * @param name String name of a state
+     * @return byte code of the state
+     */
+    public byte codeOf(String name){
+        Byte code = myCodes.get(name);
+        if(code == null){
+            throw new IllegalArgumentException("Unknown State: " + name);
+        }
+        return code;
+    }
+
+    /**
+     * @param name String name of a state
+     * @return true if the state is part of this dictionary
+     */
+    public boolean contains(String name){
+        return myCodes.containsKey(name);
+    }
+
+    /**
+     * @param code byte code of a state
+     * @return String name of the state
+     */
+    public String nameOf(byte code){
+        return myNames.get(code);
+    }
+
+    /**
+     * @return number of states in the dictionary
+     */
+    public int size(){
+        return myNames.size();
+    }
+
+    /**
+     * @return immutable list of state names, indexed by code
+     */
+    public List<String> getNames(){
+        return Collections.unmodifiableList(myNames);
+    }
+}
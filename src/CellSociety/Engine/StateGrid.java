@@ -0,0 +1,138 @@
+package CellSociety.Engine;
+
+import java.util.Arrays;
+
+/**
+ * Double-buffered grid of state codes stored in two flat byte arrays.
+ * A cell at (row, col) lives at index row * cols + col in both planes; rules read the current plane
+ * and write the next plane, and swap() makes the next plane current once a generation is complete.
+ */
+public class StateGrid {
+    private final int myRows;
+    private final int myCols;
+    private byte[] myCurrent;
+    private byte[] myNext;
+
+    /**
+     * Creates a grid with every cell in state 0
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     */
+    public StateGrid(int rows, int cols){
+        myRows = rows;
+        myCols = cols;
+        myCurrent = new byte[rows * cols];
+        myNext = new byte[rows * cols];
+    }
+
+    /**
+     * @param row row index of a cell
+     * @param col column index of a cell
+     * @return flat index of the cell in the state planes
+     */
+    public int index(int row, int col){
+        return row * myCols + col;
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @return row index of the cell
+     */
+    public int getRow(int cell){
+        return cell / myCols;
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @return column index of the cell
+     */
+    public int getCol(int cell){
+        return cell % myCols;
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @return byte code of the cell's current state
+     */
+    public byte getState(int cell){
+        return myCurrent[cell];
+    }
+
+    /**
+     * Overwrites the current state of a cell, e.g. at initialization or when the user clicks on it
+     * @param cell flat index of a cell
+     * @param state byte code of the new state
+     */
+    public void setState(int cell, byte state){
+        myCurrent[cell] = state;
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @return byte code of the cell's next state, or StateDictionary.UNSET if not claimed yet
+     */
+    public byte getNextState(int cell){
+        return myNext[cell];
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @param state byte code of the cell's next state
+     */
+    public void setNextState(int cell, byte state){
+        myNext[cell] = state;
+    }
+
+    /**
+     * The plane is swapped every generation, so callers must not hold on to it across generations.
+     * @return the current state plane
+     */
+    public byte[] getCurrentPlane(){
+        return myCurrent;
+    }
+
+    /**
+     * The plane is swapped every generation, so callers must not hold on to it across generations.
+     * @return the next state plane
+     */
+    public byte[] getNextPlane(){
+        return myNext;
+    }
+
+    /**
+     * Marks every cell's next state as unclaimed
+     */
+    public void clearNext(){
+        Arrays.fill(myNext, StateDictionary.UNSET);
+    }
+
+    /**
+     * Makes the next plane current. The old current plane is reused as the next plane.
+     */
+    public void swap(){
+        byte[] temp = myCurrent;
+        myCurrent = myNext;
+        myNext = temp;
+    }
+
+    /**
+     * @return number of rows in the grid
+     */
+    public int getRows(){
+        return myRows;
+    }
+
+    /**
+     * @return number of columns in the grid
+     */
+    public int getCols(){
+        return myCols;
+    }
+
+    /**
+     * @return total number of cells in the grid
+     */
+    public int size(){
+        return myCurrent.length;
+    }
+}
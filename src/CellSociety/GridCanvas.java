@@ -0,0 +1,218 @@
+package CellSociety;
+
+import CellSociety.CellShapes.CellGeometry;
+import CellSociety.Engine.StateGrid;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Draws a whole grid into a single WritableImage through its PixelWriter, instead of adding one Polygon
+ * per cell to the scene graph. Cells are rasterized from the same CellGeometry as the UI's Polygons:
+ * a pixel belongs to a cell if its centre lies inside the cell's outline.
+ * Cells are painted into an ARGB buffer and only the repainted cells' pixels are written to the image.
+ * Images larger than the available area are scaled down, and clicks are mapped back through the scale.
+ */
+public class GridCanvas extends ImageView {
+    //cells at least this many pixels wide and high get a black outline like the Polygons' stroke
+    private static final int MIN_OUTLINE_SIZE = 4;
+    private static final int OUTLINE = 0xFF000000;
+    private static final int BACKGROUND = 0xFFFFFFFF;
+    //when more cells than this fraction are repainted, the whole buffer is written at once
+    private static final double FULL_WRITE_FRACTION = 0.1;
+
+    private final CellGeometry myGeometry;
+    private final StateGrid myGrid;
+    private final int[] myColors;
+    private final PixelWriter myWriter;
+    private final PixelFormat<IntBuffer> myFormat;
+    private final int[] myPixels;
+    private final int myWidth;
+    private final int myHeight;
+    private final boolean hasOutline;
+    private final double myScale;
+    private final double[] myCoordinates;
+
+    //bounding box of the last painted cell
+    private int myMinX;
+    private int myMinY;
+    private int myMaxX;
+    private int myMaxY;
+
+    /**
+     * Creates the image and draws every cell
+     * @param geometry CellGeometry of the grid, with cells at least one pixel in size
+     * @param grid StateGrid holding the cells' current states
+     * @param colors ARGB color of every state code
+     * @param maxWidth width available to the grid in the scene
+     * @param maxHeight height available to the grid in the scene
+     */
+    public GridCanvas(CellGeometry geometry, StateGrid grid, int[] colors, double maxWidth, double maxHeight){
+        myGeometry = geometry;
+        myGrid = grid;
+        myColors = colors;
+        myWidth = Math.max(1, geometry.getWidth());
+        myHeight = Math.max(1, geometry.getHeight());
+        hasOutline = geometry.getCellWidth() >= MIN_OUTLINE_SIZE && geometry.getCellHeight() >= MIN_OUTLINE_SIZE;
+        myCoordinates = new double[geometry.getNumCoordinates()];
+        myPixels = new int[myWidth * myHeight];
+        Arrays.fill(myPixels, BACKGROUND);
+        WritableImage image = new WritableImage(myWidth, myHeight);
+        myWriter = image.getPixelWriter();
+        myFormat = PixelFormat.getIntArgbInstance();
+        setImage(image);
+        myScale = Math.min(1, Math.min(maxWidth / myWidth, maxHeight / myHeight));
+        setFitWidth(myWidth * myScale);
+        setFitHeight(myHeight * myScale);
+        setSmooth(myScale < 1);
+        drawAll();
+    }
+
+    /**
+     * @param color JavaFX Color
+     * @return the color as a non-premultiplied ARGB int
+     */
+    public static int toArgb(Color color){
+        return toChannel(color.getOpacity()) << 24 | toChannel(color.getRed()) << 16
+                | toChannel(color.getGreen()) << 8 | toChannel(color.getBlue());
+    }
+
+    //scales a color component between 0 and 1 to a byte; Math.round() of a double returns a long
+    private static int toChannel(double component){
+        return (int) Math.round(component * 255);
+    }
+
+    /**
+     * Repaints every cell
+     */
+    public void drawAll(){
+        for (int cell = 0; cell < myGrid.size(); cell++){
+            paintCell(cell);
+        }
+        myWriter.setPixels(0, 0, myWidth, myHeight, myFormat, myPixels, 0, myWidth);
+    }
+
+    /**
+     * Repaints the listed cells only
+     * @param cells flat indexes of the cells whose state changed
+     * @param count number of valid entries in cells
+     */
+    public void drawCells(int[] cells, int count){
+        if (count > FULL_WRITE_FRACTION * myGrid.size()){
+            for (int i = 0; i < count; i++){
+                paintCell(cells[i]);
+            }
+            myWriter.setPixels(0, 0, myWidth, myHeight, myFormat, myPixels, 0, myWidth);
+            return;
+        }
+        for (int i = 0; i < count; i++){
+            drawCell(cells[i]);
+        }
+    }
+
+    /**
+     * Repaints one cell, e.g. after the user switched its state
+     * @param cell flat index of the cell
+     */
+    public void drawCell(int cell){
+        paintCell(cell);
+        if (myMaxX > myMinX && myMaxY > myMinY){
+            myWriter.setPixels(myMinX, myMinY, myMaxX - myMinX, myMaxY - myMinY, myFormat, myPixels,
+                    myMinY * myWidth + myMinX, myWidth);
+        }
+    }
+
+    /**
+     * @param x x coordinate relative to this node
+     * @param y y coordinate relative to this node
+     * @return flat index of the cell drawn at the point, or -1 if there is none
+     */
+    public int findCell(double x, double y){
+        return myGeometry.findCell(x / myScale, y / myScale);
+    }
+
+    //paints a cell into the buffer and records its bounding box
+    private void paintCell(int cell){
+        int row = myGrid.getRow(cell);
+        int col = myGrid.getCol(cell);
+        int color = myColors[myGrid.getState(cell)];
+        myGeometry.getCoordinates(row, col, myCoordinates);
+        if (myGeometry.isSquare()){
+            paintSquare(color);
+        }
+        else {
+            paintPolygon(color);
+        }
+    }
+
+    //squares cover whole pixels, so they are filled row by row
+    private void paintSquare(int color){
+        myMinX = clamp((int) myCoordinates[0], myWidth);
+        myMinY = clamp((int) myCoordinates[1], myHeight);
+        myMaxX = clamp((int) myCoordinates[4], myWidth);
+        myMaxY = clamp((int) myCoordinates[5], myHeight);
+        for (int y = myMinY; y < myMaxY; y++){
+            int start = y * myWidth;
+            Arrays.fill(myPixels, start + myMinX, start + myMaxX, color);
+            if (hasOutline){
+                myPixels[start + myMinX] = OUTLINE;
+            }
+        }
+        if (hasOutline && myMaxY > myMinY){
+            Arrays.fill(myPixels, myMinY * myWidth + myMinX, myMinY * myWidth + myMaxX, OUTLINE);
+        }
+    }
+
+    //fills the pixels whose centres lie inside the convex outline, one pixel row at a time
+    private void paintPolygon(int color){
+        double top = Double.MAX_VALUE;
+        double bottom = -Double.MAX_VALUE;
+        for (int i = 1; i < myCoordinates.length; i += 2){
+            top = Math.min(top, myCoordinates[i]);
+            bottom = Math.max(bottom, myCoordinates[i]);
+        }
+        myMinY = clamp((int) Math.ceil(top - 0.5), myHeight);
+        myMaxY = clamp((int) Math.ceil(bottom - 0.5), myHeight);
+        myMinX = myWidth;
+        myMaxX = 0;
+        for (int y = myMinY; y < myMaxY; y++){
+            double centre = y + 0.5;
+            double left = Double.MAX_VALUE;
+            double right = -Double.MAX_VALUE;
+            for (int i = 0; i < myCoordinates.length; i += 2){
+                int j = (i + 2) % myCoordinates.length;
+                double y1 = myCoordinates[i + 1];
+                double y2 = myCoordinates[j + 1];
+                if ((centre < y1) == (centre < y2)){
+                    continue;
+                }
+                double x = myCoordinates[i] + (centre - y1) / (y2 - y1) * (myCoordinates[j] - myCoordinates[i]);
+                left = Math.min(left, x);
+                right = Math.max(right, x);
+            }
+            int from = clamp((int) Math.ceil(left - 0.5), myWidth);
+            int to = clamp((int) Math.ceil(right - 0.5), myWidth);
+            if (from >= to){
+                continue;
+            }
+            int start = y * myWidth;
+            boolean isEdgeRow = y == myMinY || y == myMaxY - 1;
+            Arrays.fill(myPixels, start + from, start + to, hasOutline && isEdgeRow ? OUTLINE : color);
+            if (hasOutline){
+                myPixels[start + from] = OUTLINE;
+                myPixels[start + to - 1] = OUTLINE;
+            }
+            myMinX = Math.min(myMinX, from);
+            myMaxX = Math.max(myMaxX, to);
+        }
+    }
+
+    private int clamp(int value, int max){
+        return Math.max(0, Math.min(max, value));
+    }
+}
@@ -0,0 +1,93 @@
+package CellSociety;
+
+import CellSociety.Engine.GridEngine;
+
+/**
+ * States of one generation, published by a SimulationRunner for the UI to draw.
+ * A frame either holds a copy of every cell's state, or only the cells that changed since the frame the UI
+ * drew before it, with their new states, so that the UI repaints those without comparing the whole grid.
+ * A frame is never modified while the UI holds it: the runner only refills frames the UI has handed back
+ * with releaseFrame(), so the engine can keep stepping while the frame is drawn.
+ */
+public class GridFrame {
+    private final byte[] myStates;
+    private final int[] myCells;
+    private final byte[] myCellStates;
+    private int myNumCells;
+    private boolean isWhole;
+    private long myGeneration;
+
+    /**
+     * @param size number of cells in the grid
+     * @param maxCells number of changed cells the frame can list
+     */
+    GridFrame(int size, int maxCells){
+        myStates = new byte[size];
+        myCells = new int[maxCells];
+        myCellStates = new byte[maxCells];
+    }
+
+    //copies every cell of the engine's current generation, called by the runner between two generations
+    void fillAll(GridEngine engine){
+        System.arraycopy(engine.getGrid().getCurrentPlane(), 0, myStates, 0, myStates.length);
+        myNumCells = 0;
+        isWhole = true;
+        myGeneration = engine.getGeneration();
+    }
+
+    //copies the listed cells of the engine's current generation, called by the runner between two generations
+    void fillCells(GridEngine engine, int[] cells, int count){
+        byte[] plane = engine.getGrid().getCurrentPlane();
+        for(int i = 0; i < count; i++){
+            myCells[i] = cells[i];
+            myCellStates[i] = plane[cells[i]];
+        }
+        myNumCells = count;
+        isWhole = false;
+        myGeneration = engine.getGeneration();
+    }
+
+    /**
+     * @return true if getStates() holds every cell's state, false if only the listed cells are given
+     */
+    public boolean isWhole(){
+        return isWhole;
+    }
+
+    /**
+     * @return state code of every cell, indexed like the engine's StateGrid, if the frame is whole;
+     * must not be modified
+     */
+    public byte[] getStates(){
+        return myStates;
+    }
+
+    /**
+     * @return flat indexes of the changed cells if the frame is not whole; only the first getNumCells() entries
+     * are valid, and must not be modified
+     */
+    public int[] getCells(){
+        return myCells;
+    }
+
+    /**
+     * @return state codes of the changed cells, in the order of getCells()
+     */
+    public byte[] getCellStates(){
+        return myCellStates;
+    }
+
+    /**
+     * @return number of changed cells listed, 0 if the frame is whole
+     */
+    public int getNumCells(){
+        return myNumCells;
+    }
+
+    /**
+     * @return number of the generation the frame holds
+     */
+    public long getGeneration(){
+        return myGeneration;
+    }
+}
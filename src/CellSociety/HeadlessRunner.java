@@ -0,0 +1,354 @@
+package CellSociety;
+
+import CellSociety.Engine.BitLifeEngine;
+import CellSociety.Engine.CellRandom;
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import CellSociety.Engine.GridSnapshot;
+import CellSociety.Engine.ParameterBlock;
+import CellSociety.Engine.PercolationClusters;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+import CellSociety.Metrics.MetricsRegistry;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+
+/**
+ * Runs a simulation model without any visualization, as fast as the grid engine allows.
+ * Takes the same XML configuration files as Simulation, steps the grid for a given number of generations
+ * and prints the number of cells in each state, together with the time spent stepping, as CSV records.
+ * The counts come from the engine's population counters, so a record costs O(states) rather than O(cells).
+ * The summary of the run goes to the standard error stream, so the records can be piped on their own.
+ * Nothing here depends on JavaFX, so it runs on servers without a display.
+ *
+ * With -hashlife, Game of Life on a power-of-two square toroidal grid jumps from record to record with
+ * HashLife (see BitLifeEngine) instead of stepping every generation.
+ *
+ * The engine's metrics are registered with JMX, and with -metrics they are also written with every record,
+ * as JSON objects if the file ends with .json and as CSV records otherwise; each describes the generations
+ * stepped since the previous one.
+ *
+ * With -seed, or a Seed tag in the XML file, the run is reproduced exactly on any number of threads;
+ * otherwise a new seed is drawn and printed with the summary. Snapshots keep the seed they were saved with.
+ *
+ * With -percolate, the clusters of a Percolation grid are found with PercolationClusters before stepping: the
+ * summary tells whether the grid percolates from its first to its last row, and the grid jumps straight to the
+ * state it settles to, so that generations 0 on are already the final ones.
+ *
+ * Usage: HeadlessRunner (model name | XML file) generations [-csv file] [-every n] [-threads n] [-hashlife]
+ * [-metrics file] [-seed n] [-percolate]
+ */
+public class HeadlessRunner {
+    static final String CSV_FLAG = "-csv";
+    static final String EVERY_FLAG = "-every";
+    static final String THREADS_FLAG = "-threads";
+    static final String HASHLIFE_FLAG = "-hashlife";
+    static final String METRICS_FLAG = "-metrics";
+    static final String SEED_FLAG = "-seed";
+    static final String PERCOLATE_FLAG = "-percolate";
+    static final String JSON_EXTENSION = ".json";
+    private static final String USAGE = "Usage: HeadlessRunner (model name | XML file) generations "
+            + "[-csv file] [-every n] [-threads n] [-hashlife] [-metrics file] [-seed n] [-percolate]";
+    private static final String OPEN = "Open";
+    private static final String PERCOLATED = "Percolated";
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private GridEngine myEngine;
+    private PrintStream myOutput;
+    private int myReportInterval;
+    private long myStepNanos;
+    private long myConvergedGeneration;
+    private boolean isSkipping;
+    private MetricsRegistry myMetrics;
+    private PrintStream myMetricsOutput;
+    private boolean isJSON;
+
+
+    /**
+     * @param engine GridEngine holding the simulation's initial states
+     * @param output stream the CSV records are written to
+     * @param reportInterval number of generations between two records
+     */
+    public HeadlessRunner(GridEngine engine, PrintStream output, int reportInterval){
+        myEngine = engine;
+        myOutput = output;
+        myReportInterval = Math.max(1, reportInterval);
+        myStepNanos = 0;
+        myConvergedGeneration = -1;
+    }
+
+
+    /**
+     * Step the grid and write a record of the state counts every report interval, and after the last generation
+     * @param generations number of generations to step
+     */
+    public void run(long generations){
+        printHeader();
+        printRecord();
+        if (isSkipping) {
+            skip(generations);
+            return;
+        }
+        for (long i = 1; i <= generations; i++) {
+            long start = System.nanoTime();
+            myEngine.step();
+            myStepNanos += System.nanoTime() - start;
+            if (myConvergedGeneration < 0 && myEngine.isConverged()) {
+                myConvergedGeneration = myEngine.getGeneration();
+            }
+            if (i % myReportInterval == 0 || i == generations) {
+                printRecord();
+            }
+        }
+        myOutput.flush();
+    }
+
+
+    //advances the engine from record to record without stepping the generations in between
+    private void skip(long generations){
+        for (long done = 0; done < generations; ) {
+            long chunk = Math.min(myReportInterval, generations - done);
+            long start = System.nanoTime();
+            myEngine.advance(chunk);
+            myStepNanos += System.nanoTime() - start;
+            done += chunk;
+            printRecord();
+        }
+        myOutput.flush();
+    }
+
+
+    /**
+     * @param skipping true to advance() the engine a report interval at a time, which lets engines that can
+     * skip generations do so; convergence is not detected then
+     */
+    public void setSkipping(boolean skipping){
+        isSkipping = skipping;
+    }
+
+
+    /**
+     * Writes the metrics with every record, and resets them afterwards
+     * @param metrics MetricsRegistry the engine records its generations in
+     * @param output stream the metrics are written to
+     * @param json true to write JSON objects, one per line, false to write CSV records
+     */
+    public void setMetricsOutput(MetricsRegistry metrics, PrintStream output, boolean json){
+        myMetrics = metrics;
+        myMetricsOutput = output;
+        isJSON = json;
+    }
+
+
+    /**
+     * @return total time spent stepping the grid in nanoseconds, excluding counting and writing records
+     */
+    public long getStepNanos(){
+        return myStepNanos;
+    }
+
+
+    /**
+     * @return first generation that did not change any cell (see GridEngine.isConverged()), or -1 if none did
+     */
+    public long getConvergedGeneration(){
+        return myConvergedGeneration;
+    }
+
+
+    private void printHeader(){
+        StringBuilder header = new StringBuilder("generation");
+        for (String state : myEngine.getStates().getNames()) {
+            header.append(',').append(state);
+        }
+        header.append(",stepMillis");
+        myOutput.println(header);
+        if (myMetricsOutput != null && !isJSON) {
+            myMetrics.writeCSVHeader(myMetricsOutput);
+        }
+    }
+
+
+    private void printRecord(){
+        StringBuilder record = new StringBuilder(Long.toString(myEngine.getGeneration()));
+        for (int count : myEngine.getPopulation()) {
+            record.append(',').append(count);
+        }
+        record.append(',').append(myStepNanos / NANOS_PER_MILLI);
+        myOutput.println(record);
+        printMetrics();
+    }
+
+
+    private void printMetrics(){
+        if (myMetricsOutput == null) {
+            return;
+        }
+        if (isJSON) {
+            myMetrics.writeJSON(myMetricsOutput, myEngine.getGeneration());
+        }
+        else {
+            myMetrics.writeCSV(myMetricsOutput, myEngine.getGeneration());
+        }
+        myMetrics.reset();
+    }
+
+
+    /**
+     * Parse the XML file, or read the GridSnapshot file, and create the engine of its simulation model
+     * @param config general configuration of the program
+     * @param simType name of the simulation model, or path to its XML or snapshot file
+     * @param seed seed of the random numbers, or null for the XML file's seed if any and a new one otherwise;
+     *             ignored for snapshots, which continue with their own
+     * @return GridEngine holding the initial states, or null if the file is invalid
+     */
+    static GridEngine createEngine(SimulationConfig config, String simType, Long seed) throws Exception{
+        if (simType.endsWith(GridSnapshot.EXTENSION)) {
+            return GridSnapshot.read(Paths.get(simType)).createEngine();
+        }
+        XMLParser parser = new XMLParser(new File(config.getXMLPath(simType)));
+        if (!config.validate(parser)) {
+            return null;
+        }
+        if (seed == null) {
+            seed = parser.getSeed() == null ? CellRandom.newSeed() : parser.getSeed();
+        }
+        StateDictionary states = new StateDictionary(parser.getStateImg().keySet());
+        StateGrid grid = EngineFactory.createGrid(parser.getHeight(), parser.getWidth(), states,
+                parser.getStatePercent(), parser.getCellStates(), parser.isSpecConfig(),
+                parser.isExactCounts(), seed);
+        return EngineFactory.create(parser.getSimType(), parser.getCellShape(), parser.getEdgeType(),
+                parser.getNeighbors(), new ParameterBlock(parser.getParameters()), states, grid, seed);
+    }
+
+
+    /**
+     * Entry point of the headless program
+     * @param args model name or XML file, number of generations, and optional flags
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        XMLAlert.setHeadless(true);
+        SimulationConfig config = new SimulationConfig(SimulationConfig.CONFIG_FILE_PATH);
+        long generations = Long.valueOf(args[1]);
+        String csvPath = null;
+        int reportInterval = 1;
+        int threads = config.getThreadCount();
+        boolean hashLife = false;
+        String metricsPath = null;
+        Long seed = null;
+        boolean percolate = false;
+        for (int i = 2; i < args.length; i += 2) {
+            if (HASHLIFE_FLAG.equals(args[i])) {
+                hashLife = true;
+                i--;
+                continue;
+            }
+            if (PERCOLATE_FLAG.equals(args[i])) {
+                percolate = true;
+                i--;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+            switch (args[i]) {
+                case CSV_FLAG:
+                    csvPath = args[i + 1];
+                    break;
+                case EVERY_FLAG:
+                    reportInterval = Integer.valueOf(args[i + 1]);
+                    break;
+                case THREADS_FLAG:
+                    threads = Integer.valueOf(args[i + 1]);
+                    break;
+                case METRICS_FLAG:
+                    metricsPath = args[i + 1];
+                    break;
+                case SEED_FLAG:
+                    seed = Long.valueOf(args[i + 1]);
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(1);
+            }
+        }
+
+        GridEngine engine = createEngine(config, args[0], seed);
+        if (engine == null) {
+            System.err.println("Simulation terminated.");
+            System.exit(1);
+        }
+        engine.setThreadCount(threads);
+        if (percolate) {
+            settlePercolation(engine);
+        }
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.registerMBeans();
+        engine.setMetrics(metrics);
+        PrintStream output = csvPath == null ? System.out : openCSV(csvPath);
+        PrintStream metricsOutput = metricsPath == null ? null : openCSV(metricsPath);
+        HeadlessRunner runner = new HeadlessRunner(engine, output, reportInterval);
+        if (metricsOutput != null) {
+            runner.setMetricsOutput(metrics, metricsOutput, metricsPath.endsWith(JSON_EXTENSION));
+        }
+        if (hashLife && engine instanceof BitLifeEngine && ((BitLifeEngine) engine).isHashLifeSupported()) {
+            ((BitLifeEngine) engine).setHashLife(true);
+            runner.setSkipping(true);
+        }
+        else if (hashLife) {
+            System.err.println("HashLife needs Game of Life on a toroidal square grid of a power-of-two size; "
+                    + "stepping every generation instead.");
+        }
+        runner.run(generations);
+        engine.shutdown();
+        if (output != System.out) {
+            output.close();
+        }
+        if (metricsOutput != null) {
+            metricsOutput.close();
+        }
+
+        StateGrid grid = engine.getGrid();
+        double millis = runner.getStepNanos() / NANOS_PER_MILLI;
+        System.err.println(String.format("Stepped %d generations of %dx%d cells on %d thread(s) in %.1f ms "
+                        + "(%.1f generations/s, %.3f ms/generation)", generations, grid.getCols(), grid.getRows(),
+                engine.getThreadCount(), millis, generations / (millis / 1000), millis / generations));
+        if (engine.getRule() != null) {
+            System.err.println("Seed " + engine.getRule().getSeed());
+        }
+        if (runner.getConvergedGeneration() >= 0) {
+            System.err.println("No cell changed in generation " + runner.getConvergedGeneration());
+        }
+    }
+
+
+    //prints the clusters of a Percolation grid and sets it to the state it settles to
+    private static void settlePercolation(GridEngine engine){
+        StateDictionary states = engine.getStates();
+        if (engine.getNeighbors() == null || !states.contains(OPEN) || !states.contains(PERCOLATED)) {
+            System.err.println("-percolate needs the Open and Percolated states of Percolation; ignored.");
+            return;
+        }
+        long start = System.nanoTime();
+        PercolationClusters clusters = new PercolationClusters(engine.getGrid(), engine.getNeighbors(), states);
+        int percolated = clusters.percolate();
+        engine.invalidate();
+        System.err.println(String.format("%d clusters, largest %d cells, %s from the first to the last row; "
+                        + "%d cells percolated at once in %.1f ms", clusters.getNumClusters(),
+                clusters.getLargestCluster(), clusters.isSpanning() ? "percolates" : "does not percolate",
+                percolated, (System.nanoTime() - start) / NANOS_PER_MILLI));
+    }
+
+
+    private static PrintStream openCSV(String path) throws FileNotFoundException {
+        return new PrintStream(new File(path));
+    }
+}
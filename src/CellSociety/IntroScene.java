@@ -75,9 +75,23 @@ public class IntroScene extends Scene {
         vbox.setPadding(new Insets(VBOX_BUFFER_TOP, VBOX_BUFFER_SIDE, VBOX_BUFFER_TOP, VBOX_BUFFER_SIDE));
         vbox.setSpacing(BUTTONS_VBUFFER_RIGHT);
         vbox.getChildren().addAll(SegSimButton(), WaTorSimButton(), uploadXML());
+        String checkpoint = mySimulation.getLatestCheckpoint();
+        if (checkpoint != null){
+            vbox.setSpacing(BUTTONS_VBUFFER_LEFT);
+            vbox.getChildren().add(resumeCheckpoint(checkpoint));
+        }
         return vbox;
     }
 
+    private Button resumeCheckpoint(String checkpoint){
+        Button resume = new Button(myResources.getString("ResumeCheckpoint"));
+        resume.setOnMouseClicked(e -> {
+            mySimulation.setSimType(checkpoint);
+            mySimulation.startSimulation();
+        });
+        return resume;
+    }
+
     private Button fireSimButton(){
         Button fireSimButton = new Button(myResources.getString("Fire"));
             fireSimButton.setOnMouseClicked(e -> {
@@ -0,0 +1,139 @@
+package CellSociety.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of non-negative values, such as the nanoseconds a phase of a generation took.
+ * Values are counted in logarithmic buckets, each power of two split into SUB_BUCKETS linear ones, so that
+ * recording is O(1) without allocating, memory stays constant and percentiles are within about 6% of the
+ * recorded values. The number of values recorded in the last full second is kept as a rate.
+ * Values are recorded by the stepping thread and read by the UI and JMX, so the methods are synchronized.
+ */
+public class Histogram implements HistogramMBean {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final long RATE_WINDOW = 1000000000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final String myName;
+    private final long[] myBuckets;
+    private long myCount;
+    private long mySum;
+    private long myMax;
+
+    private long myWindowStart;
+    private long myWindowCount;
+    private double myRate;
+
+    /**
+     * @param name name of the recorded quantity, with its unit
+     */
+    public Histogram(String name){
+        myName = name;
+        myBuckets = new long[NUM_BUCKETS];
+        myWindowStart = System.nanoTime();
+    }
+
+    /**
+     * @param value non-negative value to record; negative values are recorded as 0
+     */
+    public synchronized void record(long value){
+        value = Math.max(0, value);
+        myBuckets[bucketOf(value)]++;
+        myCount++;
+        mySum += value;
+        myMax = Math.max(myMax, value);
+        long now = System.nanoTime();
+        myWindowCount++;
+        if(now - myWindowStart >= RATE_WINDOW){
+            myRate = myWindowCount * NANOS_PER_SECOND / (now - myWindowStart);
+            myWindowStart = now;
+            myWindowCount = 0;
+        }
+    }
+
+    /**
+     * Drops every recorded value; the rate keeps being measured across resets
+     */
+    @Override
+    public synchronized void reset(){
+        Arrays.fill(myBuckets, 0);
+        myCount = 0;
+        mySum = 0;
+        myMax = 0;
+    }
+
+    /**
+     * @return name of the recorded quantity, with its unit
+     */
+    public String getName(){
+        return myName;
+    }
+
+    @Override
+    public synchronized long getCount(){
+        return myCount;
+    }
+
+    @Override
+    public synchronized double getMean(){
+        return myCount == 0 ? 0 : (double) mySum / myCount;
+    }
+
+    @Override
+    public long getMedian(){
+        return getPercentile(50);
+    }
+
+    @Override
+    public long get99thPercentile(){
+        return getPercentile(99);
+    }
+
+    @Override
+    public synchronized long getMax(){
+        return myMax;
+    }
+
+    @Override
+    public synchronized double getRate(){
+        //no full window completed for two windows means recording stopped
+        return System.nanoTime() - myWindowStart >= 2 * RATE_WINDOW ? 0 : myRate;
+    }
+
+    /**
+     * @param percentile percentage of the recorded values, between 0 and 100
+     * @return value below or at which that percentage of the recorded values lie, or 0 if there are none
+     */
+    public synchronized long getPercentile(double percentile){
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * myCount));
+        long seen = 0;
+        for(int bucket = 0; bucket < NUM_BUCKETS && myCount > 0; bucket++){
+            seen += myBuckets[bucket];
+            if(seen >= rank){
+                return Math.min(myMax, valueOf(bucket));
+            }
+        }
+        return 0;
+    }
+
+    //the first SUB_BUCKETS values have a bucket each; above, each power of two is split into SUB_BUCKETS
+    private static int bucketOf(long value){
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    //middle of the range of values counted in a bucket
+    private static long valueOf(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,41 @@
+package CellSociety.Metrics;
+
+/**
+ * Management interface of a Histogram, through which JMX clients such as JConsole read it
+ */
+public interface HistogramMBean {
+    /**
+     * @return number of values recorded since the last reset
+     */
+    long getCount();
+
+    /**
+     * @return mean of the values recorded since the last reset, or 0 if there are none
+     */
+    double getMean();
+
+    /**
+     * @return median of the values recorded since the last reset
+     */
+    long getMedian();
+
+    /**
+     * @return 99th percentile of the values recorded since the last reset
+     */
+    long get99thPercentile();
+
+    /**
+     * @return largest value recorded since the last reset
+     */
+    long getMax();
+
+    /**
+     * @return number of values recorded per second over the last full second, or 0 if recording stopped
+     */
+    double getRate();
+
+    /**
+     * Drops every recorded value, e.g. to start measuring after a warm-up
+     */
+    void reset();
+}
@@ -0,0 +1,230 @@
+package CellSociety.Metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Named Histograms describing where the time of a running simulation goes. The engine reports the two
+ * phases of every generation through startGeneration(), endFindPhase() and endGeneration(), which also record
+ * the number of changed cells and the bytes the stepping thread allocated; the UI records how long drawing
+ * the grid and the chart took. The rate of generations comes from the commit phase histogram.
+ *
+ * The histograms can be shown by the UI, written as CSV or JSON records by the HeadlessRunner and
+ * registered as JMX MBeans named CellSociety:type=Metrics,name=(histogram name).
+ * It has no JavaFX dependency so that Simulation and the HeadlessRunner can share it.
+ */
+public class MetricsRegistry {
+    public static final String FIND_NANOS = "findNanos";
+    public static final String COMMIT_NANOS = "commitNanos";
+    public static final String CHANGED_CELLS = "changedCells";
+    public static final String ALLOCATED_BYTES = "allocatedBytes";
+    public static final String RENDER_NANOS = "renderNanos";
+    public static final String CHART_NANOS = "chartNanos";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String MBEAN_NAME = "CellSociety:type=Metrics,name=";
+
+    private final Map<String, Histogram> myHistograms;
+    private final Histogram myFind;
+    private final Histogram myCommit;
+    private final Histogram myChanged;
+    private final Histogram myAllocated;
+    private final com.sun.management.ThreadMXBean myThreads;
+    private boolean isRegistered;
+    private volatile long myResetTime;
+
+    //set by the stepping thread during a generation
+    private long myGenerationStart;
+    private long myFindEnd;
+    private long myAllocationStart;
+
+    /**
+     * Creates the histograms of the engine's phases
+     */
+    public MetricsRegistry(){
+        myHistograms = new LinkedHashMap<>();
+        myFind = histogram(FIND_NANOS);
+        myCommit = histogram(COMMIT_NANOS);
+        myChanged = histogram(CHANGED_CELLS);
+        myAllocated = histogram(ALLOCATED_BYTES);
+        myThreads = findThreadBean();
+        myResetTime = System.nanoTime();
+    }
+
+    //the HotSpot extension of ThreadMXBean counts the bytes each thread allocates
+    private static com.sun.management.ThreadMXBean findThreadBean(){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()
+                ? threads : null;
+    }
+
+    /**
+     * @param name name of the recorded quantity, with its unit
+     * @return the histogram of the name, created (and registered with JMX if the registry is) on first use
+     */
+    public synchronized Histogram histogram(String name){
+        Histogram histogram = myHistograms.get(name);
+        if(histogram == null){
+            histogram = new Histogram(name);
+            myHistograms.put(name, histogram);
+            if(isRegistered){
+                register(histogram);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the histograms in the order they were created
+     */
+    public synchronized List<Histogram> getHistograms(){
+        return new ArrayList<>(myHistograms.values());
+    }
+
+    /**
+     * Called by the stepping thread before the find phase of a generation
+     */
+    public void startGeneration(){
+        myAllocationStart = allocatedBytes();
+        myGenerationStart = System.nanoTime();
+    }
+
+    /**
+     * Called by the stepping thread once the next states are found, before they are committed
+     */
+    public void endFindPhase(){
+        myFindEnd = System.nanoTime();
+    }
+
+    /**
+     * Called by the stepping thread once a generation is complete
+     * @param changed number of cells whose state changed in the generation
+     */
+    public void endGeneration(int changed){
+        long end = System.nanoTime();
+        myFind.record(myFindEnd - myGenerationStart);
+        myCommit.record(end - myFindEnd);
+        myChanged.record(changed);
+        if(myThreads != null){
+            myAllocated.record(allocatedBytes() - myAllocationStart);
+        }
+    }
+
+    private long allocatedBytes(){
+        return myThreads == null ? 0 : myThreads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * @return number of generations completed per second over the last full second
+     */
+    public double getGenerationRate(){
+        return myCommit.getRate();
+    }
+
+    /**
+     * @return number of generations completed per second since the registry was created or last reset
+     */
+    public double getAverageGenerationRate(){
+        return myCommit.getCount() * NANOS_PER_SECOND / Math.max(1, System.nanoTime() - myResetTime);
+    }
+
+    /**
+     * Drops the values of every histogram, e.g. when a new simulation starts
+     */
+    public void reset(){
+        for(Histogram histogram : getHistograms()){
+            histogram.reset();
+        }
+        myResetTime = System.nanoTime();
+    }
+
+    /**
+     * Registers every histogram, and those created later, with the platform MBean server,
+     * replacing the histograms of another registry registered under the same names
+     */
+    public synchronized void registerMBeans(){
+        isRegistered = true;
+        for(Histogram histogram : myHistograms.values()){
+            register(histogram);
+        }
+    }
+
+    private void register(Histogram histogram){
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try{
+            ObjectName name = new ObjectName(MBEAN_NAME + histogram.getName());
+            if(server.isRegistered(name)){
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(histogram, name);
+        }
+        catch(JMException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the names of the columns of writeCSV()
+     * @param output stream the header is written to
+     */
+    public void writeCSVHeader(PrintStream output){
+        StringBuilder header = new StringBuilder("generation,generationsPerSecond");
+        for(Histogram histogram : getHistograms()){
+            String name = histogram.getName();
+            header.append(',').append(name).append("Count,").append(name).append("Mean,")
+                    .append(name).append("Median,").append(name).append("99thPercentile,")
+                    .append(name).append("Max");
+        }
+        output.println(header);
+    }
+
+    /**
+     * Writes the average generation rate, and the count, mean, median, 99th percentile and maximum of every
+     * histogram, as a CSV record
+     * @param output stream the record is written to
+     * @param generation number of the generation the simulation is at
+     */
+    public void writeCSV(PrintStream output, long generation){
+        StringBuilder record = new StringBuilder(Long.toString(generation));
+        record.append(',').append(format(getAverageGenerationRate()));
+        for(Histogram histogram : getHistograms()){
+            record.append(',').append(histogram.getCount()).append(',').append(format(histogram.getMean()))
+                    .append(',').append(histogram.getMedian()).append(',').append(histogram.get99thPercentile())
+                    .append(',').append(histogram.getMax());
+        }
+        output.println(record);
+    }
+
+    /**
+     * Writes the same values as writeCSV() as a JSON object on a single line
+     * @param output stream the object is written to
+     * @param generation number of the generation the simulation is at
+     */
+    public void writeJSON(PrintStream output, long generation){
+        StringBuilder record = new StringBuilder("{\"generation\":").append(generation)
+                .append(",\"generationsPerSecond\":").append(format(getAverageGenerationRate()));
+        for(Histogram histogram : getHistograms()){
+            record.append(",\"").append(histogram.getName()).append("\":{\"count\":").append(histogram.getCount())
+                    .append(",\"mean\":").append(format(histogram.getMean()))
+                    .append(",\"median\":").append(histogram.getMedian())
+                    .append(",\"99thPercentile\":").append(histogram.get99thPercentile())
+                    .append(",\"max\":").append(histogram.getMax()).append('}');
+        }
+        output.println(record.append('}'));
+    }
+
+    private static String format(double value){
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,44 @@
+package CellSociety.Neighbors;
+
+import CellSociety.Cell;
+
+import java.util.AbstractList;
+
+/**
+ * Read-only list of a cell's neighbors backed by a shared NeighborTable,
+ * so a cell keeps no neighbor list of its own
+ */
+public class NeighborList extends AbstractList<Cell> {
+    private final Cell[][] myGrid;
+    private final int[] myNeighbors;
+    private final int myStart;
+    private final int mySize;
+    private final int myCols;
+
+    /**
+     * @param grid 2D cell array grid of all the cells, with the table's numbers of rows and columns
+     * @param table NeighborTable of the grid
+     * @param cell flat index (row * cols + col) of the cell whose neighbors are listed
+     */
+    public NeighborList(Cell[][] grid, NeighborTable table, int cell){
+        myGrid = grid;
+        myNeighbors = table.getNeighbors();
+        myStart = table.getOffsets()[cell];
+        mySize = table.getNumNeighbors(cell);
+        myCols = table.getCols();
+    }
+
+    @Override
+    public Cell get(int index){
+        if(index < 0 || index >= mySize){
+            throw new IndexOutOfBoundsException("Neighbor " + index + " of " + mySize);
+        }
+        int neighbor = myNeighbors[myStart + index];
+        return myGrid[neighbor / myCols][neighbor % myCols];
+    }
+
+    @Override
+    public int size(){
+        return mySize;
+    }
+}
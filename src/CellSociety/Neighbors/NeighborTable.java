@@ -0,0 +1,255 @@
+package CellSociety.Neighbors;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Neighbor lookup table for a whole grid, stored in compressed rows of flat int arrays.
+ * The neighbors of the cell with flat index i (row * cols + col) are
+ * getNeighbors()[getOffsets()[i]] up to, but not including, getNeighbors()[getOffsets()[i + 1]],
+ * in the same order as the requested neighbor indexes, using the same index numbering
+ * as NeighborsSquare and NeighborsTriangle.
+ */
+public class NeighborTable {
+    private static final String SQUARE = "Square";
+    private static final String TRIANGLE = "Triangle";
+
+    //row and column offsets of every neighbor index of a square cell
+    private static final int[] SQUARE_ROWS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SQUARE_COLS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    //row and column offsets of every neighbor index of a triangle pointing up
+    private static final int[] UP_ROWS = {1, 1, 1, 1, 1, 0, 0, 0, 0, -1, -1, -1};
+    private static final int[] UP_COLS = {2, 1, 0, -1, -2, 2, 1, -1, -2, 1, 0, -1};
+
+    //row and column offsets of every neighbor index of a triangle pointing down
+    private static final int[] DOWN_ROWS = {-1, -1, -1, -1, -1, 0, 0, 0, 0, 1, 1, 1};
+    private static final int[] DOWN_COLS = {-2, -1, 0, 1, 2, -2, -1, 1, 2, -1, 0, 1};
+
+    private final int myRows;
+    private final int myCols;
+    private final boolean isToroidal;
+    private final int[] myUpRows;
+    private final int[] myUpCols;
+    private final int[] myDownRows;
+    private final int[] myDownCols;
+    private final int[] myIndexes;
+    private final int[] myOffsets;
+    private final int[] myNeighbors;
+    private NeighborTable myReverse;
+
+    /**
+     * Resolves the neighbors of every cell of a grid.
+     * The table never changes after construction, so one table can be shared by everything stepping
+     * or drawing grids of the same topology (see NeighborTopology); the arrays it returns must not be modified.
+     * @param shapeType String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighborIndexes List of the indexes corresponding to the desired neighbors
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     */
+    public NeighborTable(String shapeType, String edgeType, List<Integer> neighborIndexes, int rows, int cols){
+        if(!SQUARE.equals(shapeType) && !TRIANGLE.equals(shapeType)){
+            throw new IllegalArgumentException("Unknown Shape Type");
+        }
+        if(!Neighbors.FINITE.equals(edgeType) && !Neighbors.TOROIDAL.equals(edgeType)){
+            throw new IllegalArgumentException("Not a valid edgetype");
+        }
+        myRows = rows;
+        myCols = cols;
+        isToroidal = Neighbors.TOROIDAL.equals(edgeType);
+        boolean isTriangle = TRIANGLE.equals(shapeType);
+        myUpRows = isTriangle ? UP_ROWS : SQUARE_ROWS;
+        myUpCols = isTriangle ? UP_COLS : SQUARE_COLS;
+        myDownRows = isTriangle ? DOWN_ROWS : SQUARE_ROWS;
+        myDownCols = isTriangle ? DOWN_COLS : SQUARE_COLS;
+        myIndexes = neighborIndexes.stream().mapToInt(Integer::intValue)
+                .filter(index -> index >= 0 && index < myUpRows.length).toArray();
+        myOffsets = new int[rows * cols + 1];
+
+        //neighbors of cells at least this far from every edge never wrap or fall off the grid
+        int colMargin = isTriangle ? 2 : 1;
+        int[] upDeltas = findDeltas(myUpRows, myUpCols);
+        int[] downDeltas = findDeltas(myDownRows, myDownCols);
+
+        //first pass counts the neighbors so the table can be allocated once
+        for(int row = 0; row < rows; row++){
+            for(int col = 0; col < cols; col++){
+                int cell = row * cols + col;
+                int count = isInterior(row, col, colMargin) ? myIndexes.length : addEdgeNeighbors(row, col, null, 0);
+                myOffsets[cell + 1] = myOffsets[cell] + count;
+            }
+        }
+        myNeighbors = new int[myOffsets[rows * cols]];
+        for(int row = 0; row < rows; row++){
+            for(int col = 0; col < cols; col++){
+                int cell = row * cols + col;
+                if(!isInterior(row, col, colMargin)){
+                    addEdgeNeighbors(row, col, myNeighbors, myOffsets[cell]);
+                    continue;
+                }
+                int[] deltas = isPointingUp(row, col) ? upDeltas : downDeltas;
+                for(int k = 0; k < deltas.length; k++){
+                    myNeighbors[myOffsets[cell] + k] = cell + deltas[k];
+                }
+            }
+        }
+    }
+
+    //table with already resolved neighbors, used for the reverse table
+    private NeighborTable(int rows, int cols, boolean toroidal, int[] offsets, int[] neighbors){
+        myRows = rows;
+        myCols = cols;
+        isToroidal = toroidal;
+        myUpRows = null;
+        myUpCols = null;
+        myDownRows = null;
+        myDownCols = null;
+        myIndexes = null;
+        myOffsets = offsets;
+        myNeighbors = neighbors;
+    }
+
+    //flat index offsets of the requested neighbors of a cell away from the edges
+    private int[] findDeltas(int[] dRow, int[] dCol){
+        int[] deltas = new int[myIndexes.length];
+        for(int k = 0; k < myIndexes.length; k++){
+            deltas[k] = dRow[myIndexes[k]] * myCols + dCol[myIndexes[k]];
+        }
+        return deltas;
+    }
+
+    private boolean isInterior(int row, int col, int colMargin){
+        return row >= 1 && row < myRows - 1 && col >= colMargin && col < myCols - colMargin;
+    }
+
+    //squares use the same offsets for both orientations
+    private boolean isPointingUp(int row, int col){
+        return (row + col) % 2 == 0;
+    }
+
+    //writes the neighbors of a cell near an edge into the table (if given) and returns how many there are
+    private int addEdgeNeighbors(int row, int col, int[] table, int start){
+        boolean isUp = isPointingUp(row, col);
+        int[] dRow = isUp ? myUpRows : myDownRows;
+        int[] dCol = isUp ? myUpCols : myDownCols;
+        int count = 0;
+        for(int index : myIndexes){
+            int neighbor = findNeighbor(row + dRow[index], col + dCol[index]);
+            if(neighbor < 0){
+                continue;
+            }
+            if(table != null){
+                table[start + count] = neighbor;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    //returns the flat index of the coordinates after handling edges, or -1 if off a finite grid
+    private int findNeighbor(int row, int col){
+        if(row >= 0 && row < myRows && col >= 0 && col < myCols){
+            return row * myCols + col;
+        }
+        if(!isToroidal){
+            return -1;
+        }
+        return Math.floorMod(row, myRows) * myCols + Math.floorMod(col, myCols);
+    }
+
+    /**
+     * The reverse table lists, for every cell, the cells that have it as a neighbor, i.e. the cells
+     * whose next state may depend on it. It is built on the first call; when every neighbor relation
+     * goes both ways (e.g. all neighbors of a square) this table is its own reverse.
+     * @return NeighborTable of the cells that have each cell as a neighbor
+     */
+    public synchronized NeighborTable getReverse(){
+        if(myReverse == null){
+            myReverse = buildReverse();
+        }
+        return myReverse;
+    }
+
+    //transposes the table, listing each cell's dependents in ascending order
+    private NeighborTable buildReverse(){
+        int size = myRows * myCols;
+        int[] offsets = new int[size + 1];
+        for(int neighbor : myNeighbors){
+            offsets[neighbor + 1]++;
+        }
+        for(int cell = 0; cell < size; cell++){
+            offsets[cell + 1] += offsets[cell];
+        }
+        int[] neighbors = new int[myNeighbors.length];
+        int[] next = Arrays.copyOf(offsets, size);
+        for(int cell = 0; cell < size; cell++){
+            for(int k = myOffsets[cell]; k < myOffsets[cell + 1]; k++){
+                neighbors[next[myNeighbors[k]]++] = cell;
+            }
+        }
+        if(isSymmetric(offsets, neighbors)){
+            return this;
+        }
+        return new NeighborTable(myRows, myCols, isToroidal, offsets, neighbors);
+    }
+
+    //true if every cell's neighbors are the same cells as in the sorted reverse lists
+    private boolean isSymmetric(int[] reverseOffsets, int[] reverseNeighbors){
+        if(!Arrays.equals(myOffsets, reverseOffsets)){
+            return false;
+        }
+        for(int cell = 0; cell < myRows * myCols; cell++){
+            int[] sorted = Arrays.copyOfRange(myNeighbors, myOffsets[cell], myOffsets[cell + 1]);
+            Arrays.sort(sorted);
+            if(!Arrays.equals(sorted, 0, sorted.length, reverseNeighbors, myOffsets[cell], myOffsets[cell + 1])){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return array where entry i is the position in getNeighbors() of the first neighbor of cell i;
+     * it has one extra entry so that entry i + 1 marks the end of cell i's neighbors
+     */
+    public int[] getOffsets(){
+        return myOffsets;
+    }
+
+    /**
+     * @return flat array of the neighbors' indexes of all cells
+     */
+    public int[] getNeighbors(){
+        return myNeighbors;
+    }
+
+    /**
+     * @param cell flat index of a cell
+     * @return number of neighbors of the cell
+     */
+    public int getNumNeighbors(int cell){
+        return myOffsets[cell + 1] - myOffsets[cell];
+    }
+
+    /**
+     * @return true if the table links the cells of opposite edges of the grid
+     */
+    public boolean isToroidal(){
+        return isToroidal;
+    }
+
+    /**
+     * @return number of rows in the grid
+     */
+    public int getRows(){
+        return myRows;
+    }
+
+    /**
+     * @return number of columns in the grid
+     */
+    public int getCols(){
+        return myCols;
+    }
+}
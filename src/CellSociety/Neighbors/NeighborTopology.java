@@ -0,0 +1,97 @@
+package CellSociety.Neighbors;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hands out shared NeighborTables, so every cell of a grid, the grid engine and the view all use one
+ * table per (shape, edge type, neighbor indexes, grid size) instead of resolving neighbors cell by cell.
+ * The few most recently used tables are kept; tables of large grids are big, so older ones are dropped.
+ */
+public class NeighborTopology {
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<Key, NeighborTable> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, NeighborTable> eldest){
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static Key myLastKey;
+    private static NeighborTable myLastTable;
+
+    private NeighborTopology(){
+    }
+
+    /**
+     * @param shapeType String of the cell shape (Square, Triangle)
+     * @param edgeType String of the edge type (Finite, Toroidal)
+     * @param neighborIndexes List of the indexes corresponding to the desired neighbors
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     * @return NeighborTable of the topology, built on the first request and shared afterwards
+     */
+    public static synchronized NeighborTable getTable(String shapeType, String edgeType, List<Integer> neighborIndexes,
+                                                      int rows, int cols){
+        //every cell of a grid asks for the same table in a row, so check the last one without allocating a key
+        if(myLastKey != null && myLastKey.matches(shapeType, edgeType, neighborIndexes, rows, cols)){
+            return myLastTable;
+        }
+        Key key = new Key(shapeType, edgeType, neighborIndexes, rows, cols);
+        NeighborTable table = CACHE.get(key);
+        if(table == null){
+            table = new NeighborTable(shapeType, edgeType, neighborIndexes, rows, cols);
+            CACHE.put(key, table);
+        }
+        myLastKey = key;
+        myLastTable = table;
+        return table;
+    }
+
+    /**
+     * Drops all shared tables, e.g. before loading a very large grid
+     */
+    public static synchronized void clear(){
+        CACHE.clear();
+        myLastKey = null;
+        myLastTable = null;
+    }
+
+    //everything a NeighborTable depends on
+    private static class Key {
+        private final String myShapeType;
+        private final String myEdgeType;
+        private final List<Integer> myNeighborIndexes;
+        private final int myRows;
+        private final int myCols;
+
+        Key(String shapeType, String edgeType, List<Integer> neighborIndexes, int rows, int cols){
+            myShapeType = shapeType;
+            myEdgeType = edgeType;
+            myNeighborIndexes = List.copyOf(neighborIndexes);
+            myRows = rows;
+            myCols = cols;
+        }
+
+        boolean matches(String shapeType, String edgeType, List<Integer> neighborIndexes, int rows, int cols){
+            return myRows == rows && myCols == cols && myShapeType.equals(shapeType) && myEdgeType.equals(edgeType)
+                    && myNeighborIndexes.equals(neighborIndexes);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if(!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return matches(key.myShapeType, key.myEdgeType, key.myNeighborIndexes, key.myRows, key.myCols);
+        }
+
+        @Override
+        public int hashCode(){
+            return Objects.hash(myShapeType, myEdgeType, myNeighborIndexes, myRows, myCols);
+        }
+    }
+}
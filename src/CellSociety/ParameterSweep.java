@@ -0,0 +1,369 @@
+package CellSociety;
+
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import CellSociety.Engine.ParameterBlock;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a simulation model many times over a grid of parameter values, to calibrate it without moving
+ * the UI's parameter sliders one run at a time. Every combination of the swept parameters' values is run
+ * with a number of seeds, which fix the random initial grid and every random choice of the rules, and every
+ * run is an independent engine stepped serially, so the runs are spread over all cores. A run depends on
+ * nothing but its parameters and seed, so a sweep gives the same results on any number of threads.
+ * Runs are handed to the threads through a bounded queue, so that a sweep of millions of runs does not
+ * hold them all in memory.
+ *
+ * The population of every run is sampled every report interval, and the samples of the runs of a
+ * combination are aggregated as they complete: the results file has one CSV record per combination and
+ * sampled generation with the mean, standard deviation, minimum and maximum count of each state over
+ * the seeds. The records of the last generation hold the final statistics.
+ * Nothing here depends on JavaFX, so it runs on servers without a display.
+ *
+ * Parameters are given by their position in the XML file, either as a range from:to:step or as a list of
+ * values separated by commas, e.g. -param 0=0.1:0.9:0.1 -param 1=2,4,8.
+ *
+ * Usage: ParameterSweep (model name | XML file) generations -param i=values [-param i=values ...] [-seeds n]
+ * [-every n] [-threads n] [-out file]
+ */
+public class ParameterSweep {
+    static final String PARAM_FLAG = "-param";
+    static final String SEEDS_FLAG = "-seeds";
+    static final String EVERY_FLAG = "-every";
+    static final String THREADS_FLAG = "-threads";
+    static final String OUT_FLAG = "-out";
+    private static final String USAGE = "Usage: ParameterSweep (model name | XML file) generations "
+            + "-param i=(from:to:step | v1,v2,...) [-param ...] [-seeds n] [-every n] [-threads n] [-out file]";
+    private static final String RANGE_SEPARATOR = ":";
+    private static final String LIST_SEPARATOR = ",";
+    private static final String INDEX_SEPARATOR = "=";
+    //runs waiting in the queue per thread, so that threads never wait for the producer
+    private static final int QUEUE_PER_THREAD = 2;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final XMLParser myParser;
+    private final long myGenerations;
+    private final int myReportInterval;
+    private final int mySeeds;
+    private final List<Integer> mySwept;
+    private final List<double[]> myCombinations;
+    private final long[] mySampleGenerations;
+    private final Aggregate[] myAggregates;
+
+
+    /**
+     * @param parser XMLParser of the base configuration, already validated
+     * @param generations number of generations every run is stepped
+     * @param reportInterval number of generations between two samples of the population
+     * @param seeds number of runs of every combination, with the seeds 0 up to seeds - 1
+     * @param swept positions of the swept parameters
+     * @param values values of each swept parameter, in the order of swept
+     */
+    public ParameterSweep(XMLParser parser, long generations, int reportInterval, int seeds, List<Integer> swept,
+                          List<double[]> values){
+        myParser = parser;
+        myGenerations = generations;
+        myReportInterval = Math.max(1, reportInterval);
+        mySeeds = Math.max(1, seeds);
+        mySwept = new ArrayList<>(swept);
+        myCombinations = new ArrayList<>();
+        combine(values, new double[values.size()], 0);
+        mySampleGenerations = sampleGenerations();
+        int numStates = parser.getStateImg().size();
+        myAggregates = new Aggregate[myCombinations.size()];
+        for (int i = 0; i < myAggregates.length; i++) {
+            myAggregates[i] = new Aggregate(mySampleGenerations.length, numStates);
+        }
+    }
+
+
+    //adds every combination of the values of the parameters from the given one on
+    private void combine(List<double[]> values, double[] combination, int parameter){
+        if (parameter == values.size()) {
+            myCombinations.add(combination.clone());
+            return;
+        }
+        for (double value : values.get(parameter)) {
+            combination[parameter] = value;
+            combine(values, combination, parameter + 1);
+        }
+    }
+
+
+    //generation 0, every report interval and the last generation
+    private long[] sampleGenerations(){
+        List<Long> generations = new ArrayList<>();
+        for (long generation = 0; generation < myGenerations; generation += myReportInterval) {
+            generations.add(generation);
+        }
+        generations.add(myGenerations);
+        long[] samples = new long[generations.size()];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = generations.get(i);
+        }
+        return samples;
+    }
+
+
+    /**
+     * Runs every combination with every seed, returning once all runs are complete
+     * @param threads number of runs stepped at the same time
+     */
+    public void run(int threads) throws InterruptedException {
+        threads = Math.max(1, threads);
+        //once the queue is full the producing thread runs the next run itself, which throttles it
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        for (int combination = 0; combination < myCombinations.size(); combination++) {
+            for (int seed = 0; seed < mySeeds; seed++) {
+                int runCombination = combination;
+                long runSeed = seed;
+                executor.execute(() -> runOnce(runCombination, runSeed));
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+
+    //steps one run of a combination and adds its population samples to the combination's aggregate
+    private void runOnce(int combination, long seed){
+        List<Double> parameters = new ArrayList<>(myParser.getParameters());
+        for (int i = 0; i < mySwept.size(); i++) {
+            parameters.set(mySwept.get(i), myCombinations.get(combination)[i]);
+        }
+        StateDictionary states = new StateDictionary(myParser.getStateImg().keySet());
+        StateGrid grid = EngineFactory.createGrid(myParser.getHeight(), myParser.getWidth(), states,
+                myParser.getStatePercent(), myParser.getCellStates(), myParser.isSpecConfig(),
+                myParser.isExactCounts(), seed);
+        GridEngine engine = EngineFactory.create(myParser.getSimType(), myParser.getCellShape(),
+                myParser.getEdgeType(), myParser.getNeighbors(), new ParameterBlock(parameters), states, grid, seed);
+        int[][] samples = new int[mySampleGenerations.length][states.size()];
+        engine.getPopulation(samples[0]);
+        for (int sample = 1; sample < samples.length; sample++) {
+            engine.advance(mySampleGenerations[sample] - mySampleGenerations[sample - 1]);
+            engine.getPopulation(samples[sample]);
+        }
+        engine.shutdown();
+        myAggregates[combination].add(samples);
+    }
+
+
+    /**
+     * Writes the aggregated statistics of every combination and sampled generation as CSV records
+     * @param output stream the records are written to
+     */
+    public void writeCSV(PrintStream output){
+        StringBuilder header = new StringBuilder();
+        for (int parameter : mySwept) {
+            header.append("param").append(parameter).append(',');
+        }
+        header.append("runs,generation");
+        for (String state : myParser.getStateImg().keySet()) {
+            header.append(',').append(state).append("Mean,").append(state).append("Std,")
+                    .append(state).append("Min,").append(state).append("Max");
+        }
+        output.println(header);
+        for (int combination = 0; combination < myCombinations.size(); combination++) {
+            StringBuilder values = new StringBuilder();
+            for (double value : myCombinations.get(combination)) {
+                values.append(value).append(',');
+            }
+            Aggregate aggregate = myAggregates[combination];
+            for (int sample = 0; sample < mySampleGenerations.length; sample++) {
+                StringBuilder record = new StringBuilder(values).append(aggregate.getRuns()).append(',')
+                        .append(mySampleGenerations[sample]);
+                aggregate.append(record, sample);
+                output.println(record);
+            }
+        }
+        output.flush();
+    }
+
+
+    /**
+     * @return number of parameter combinations, each run once per seed
+     */
+    public int getNumCombinations(){
+        return myCombinations.size();
+    }
+
+
+    /**
+     * Parse a parameter's values, either a range from:to:step or a list of values separated by commas
+     * @param values String of the values
+     * @return the values in the given order
+     */
+    static double[] parseValues(String values){
+        if (!values.contains(RANGE_SEPARATOR)) {
+            String[] list = values.split(LIST_SEPARATOR);
+            double[] parsed = new double[list.length];
+            for (int i = 0; i < list.length; i++) {
+                parsed[i] = Double.valueOf(list[i]);
+            }
+            return parsed;
+        }
+        String[] range = values.split(RANGE_SEPARATOR);
+        if (range.length != 3) {
+            throw new IllegalArgumentException("Not a valid parameter range");
+        }
+        //decimal arithmetic, so that 0.1:0.9:0.2 gives 0.3 rather than 0.30000000000000004
+        BigDecimal from = new BigDecimal(range[0]);
+        BigDecimal to = new BigDecimal(range[1]);
+        BigDecimal step = new BigDecimal(range[2]);
+        if (step.signum() <= 0 || to.compareTo(from) < 0) {
+            throw new IllegalArgumentException("Not a valid parameter range");
+        }
+        int count = to.subtract(from).divideToIntegralValue(step).intValueExact() + 1;
+        double[] parsed = new double[count];
+        for (int i = 0; i < count; i++) {
+            parsed[i] = from.add(step.multiply(BigDecimal.valueOf(i))).doubleValue();
+        }
+        return parsed;
+    }
+
+
+    /**
+     * Entry point of the sweep program
+     * @param args model name or XML file, number of generations, and flags
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            exitWithUsage();
+        }
+        XMLAlert.setHeadless(true);
+        SimulationConfig config = new SimulationConfig(SimulationConfig.CONFIG_FILE_PATH);
+        long generations = Long.valueOf(args[1]);
+        List<Integer> swept = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+        int seeds = 1;
+        int reportInterval = 1;
+        int threads = config.getThreadCount();
+        String outPath = null;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                exitWithUsage();
+            }
+            switch (args[i]) {
+                case PARAM_FLAG:
+                    String[] param = args[i + 1].split(INDEX_SEPARATOR);
+                    if (param.length != 2) {
+                        exitWithUsage();
+                    }
+                    try {
+                        swept.add(Integer.valueOf(param[0]));
+                        values.add(parseValues(param[1]));
+                    }
+                    catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage() + ": " + args[i + 1]);
+                        exitWithUsage();
+                    }
+                    break;
+                case SEEDS_FLAG:
+                    seeds = Integer.valueOf(args[i + 1]);
+                    break;
+                case EVERY_FLAG:
+                    reportInterval = Integer.valueOf(args[i + 1]);
+                    break;
+                case THREADS_FLAG:
+                    threads = Integer.valueOf(args[i + 1]);
+                    break;
+                case OUT_FLAG:
+                    outPath = args[i + 1];
+                    break;
+                default:
+                    exitWithUsage();
+            }
+        }
+
+        XMLParser parser = new XMLParser(new File(config.getXMLPath(args[0])));
+        if (!config.validate(parser)) {
+            System.err.println("Simulation terminated.");
+            System.exit(1);
+        }
+        for (int parameter : swept) {
+            if (parameter < 0 || parameter >= parser.getParameters().size()) {
+                System.err.println(parser.getSimType() + " has no parameter " + parameter + ".");
+                System.exit(1);
+            }
+        }
+        ParameterSweep sweep = new ParameterSweep(parser, generations, reportInterval, seeds, swept, values);
+        long start = System.nanoTime();
+        sweep.run(threads);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        PrintStream output = outPath == null ? System.out : openCSV(outPath);
+        sweep.writeCSV(output);
+        if (output != System.out) {
+            output.close();
+        }
+        System.out.println(String.format("Ran %d simulations (%d parameter combinations x %d seeds) of %d "
+                        + "generations on %d thread(s) in %.1f s", sweep.getNumCombinations() * seeds,
+                sweep.getNumCombinations(), seeds, generations, threads, seconds));
+    }
+
+
+    private static void exitWithUsage(){
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+
+    private static PrintStream openCSV(String path) throws FileNotFoundException {
+        return new PrintStream(new File(path));
+    }
+
+
+    //running statistics of the samples of every run of a combination, added as runs complete
+    private static class Aggregate {
+        private final double[][] mySums;
+        private final double[][] mySquares;
+        private final int[][] myMins;
+        private final int[][] myMaxes;
+        private int myRuns;
+
+        Aggregate(int numSamples, int numStates){
+            mySums = new double[numSamples][numStates];
+            mySquares = new double[numSamples][numStates];
+            myMins = new int[numSamples][numStates];
+            myMaxes = new int[numSamples][numStates];
+        }
+
+        synchronized void add(int[][] samples){
+            for (int sample = 0; sample < samples.length; sample++) {
+                for (int state = 0; state < samples[sample].length; state++) {
+                    int count = samples[sample][state];
+                    mySums[sample][state] += count;
+                    mySquares[sample][state] += (double) count * count;
+                    myMins[sample][state] = myRuns == 0 ? count : Math.min(myMins[sample][state], count);
+                    myMaxes[sample][state] = myRuns == 0 ? count : Math.max(myMaxes[sample][state], count);
+                }
+            }
+            myRuns++;
+        }
+
+        synchronized int getRuns(){
+            return myRuns;
+        }
+
+        //appends the mean, standard deviation, minimum and maximum of every state at a sample
+        synchronized void append(StringBuilder record, int sample){
+            for (int state = 0; state < mySums[sample].length; state++) {
+                double mean = myRuns == 0 ? 0 : mySums[sample][state] / myRuns;
+                double variance = myRuns == 0 ? 0 : mySquares[sample][state] / myRuns - mean * mean;
+                record.append(',').append(mean).append(',').append(Math.sqrt(Math.max(0, variance)))
+                        .append(',').append(myMins[sample][state]).append(',').append(myMaxes[sample][state]);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package CellSociety;
+
+import CellSociety.Engine.CellRandom;
+import CellSociety.Engine.PercolationClusters;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+import CellSociety.Neighbors.NeighborTable;
+import CellSociety.Neighbors.NeighborTopology;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the percolation threshold of a Percolation configuration by Monte Carlo: for every probability
+ * of a cell being open, many random grids of the XML file's size, cell shape, neighbors and edge type are
+ * checked for a cluster spanning them from the first to the last row with PercolationClusters, without
+ * stepping any generation. The grids are independent, so they are spread over all cores like the runs of a
+ * ParameterSweep. A cell of the grid of seed s is open if its random number of s is below the probability,
+ * so the grids of a seed only gain open cells as the probability grows, and a run gives the same results on
+ * any number of threads.
+ *
+ * The results file has one CSV record per probability with the fraction of grids that percolate and the
+ * mean fraction of cells in the largest cluster. The threshold is estimated where the percolating fraction
+ * crosses one half, interpolating between the two probabilities around it.
+ *
+ * Usage: PercolationThreshold (model name | XML file) -open from:to:step [-seeds n] [-threads n] [-out file]
+ */
+public class PercolationThreshold {
+    static final String OPEN_FLAG = "-open";
+    static final String SEEDS_FLAG = "-seeds";
+    static final String THREADS_FLAG = "-threads";
+    static final String OUT_FLAG = "-out";
+    private static final String USAGE = "Usage: PercolationThreshold (model name | XML file) "
+            + "-open (from:to:step | p1,p2,...) [-seeds n] [-threads n] [-out file]";
+    private static final String OPEN = "Open";
+    private static final String BLOCKED = "Blocked";
+    //fraction of percolating grids the threshold is estimated at
+    private static final double CRITICAL_FRACTION = 0.5;
+    //grids waiting in the queue per thread, so that threads never wait for the producer
+    private static final int QUEUE_PER_THREAD = 2;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final XMLParser myParser;
+    private final NeighborTable myNeighbors;
+    private final double[] myProbabilities;
+    private final int mySeeds;
+    private final int[] mySpanning;
+    private final double[] myLargest;
+
+
+    /**
+     * @param parser XMLParser of a Percolation configuration, already validated
+     * @param probabilities probabilities of a cell being open
+     * @param seeds number of grids of every probability, with the seeds 0 up to seeds - 1
+     */
+    public PercolationThreshold(XMLParser parser, double[] probabilities, int seeds){
+        myParser = parser;
+        myNeighbors = NeighborTopology.getTable(parser.getCellShape(), parser.getEdgeType(), parser.getNeighbors(),
+                parser.getHeight(), parser.getWidth());
+        myProbabilities = probabilities.clone();
+        mySeeds = Math.max(1, seeds);
+        mySpanning = new int[probabilities.length];
+        myLargest = new double[probabilities.length];
+    }
+
+
+    /**
+     * Checks the grids of every probability and seed, returning once all are done
+     * @param threads number of grids checked at the same time
+     */
+    public void run(int threads) throws InterruptedException {
+        threads = Math.max(1, threads);
+        //once the queue is full the producing thread checks the next grid itself, which throttles it
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        for (int probability = 0; probability < myProbabilities.length; probability++) {
+            for (int seed = 0; seed < mySeeds; seed++) {
+                int runProbability = probability;
+                long runSeed = seed;
+                executor.execute(() -> runOnce(runProbability, runSeed));
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+
+    //draws the grid of a probability and seed and adds its clusters to the probability's results
+    private void runOnce(int probability, long seed){
+        StateDictionary states = new StateDictionary(myParser.getStateImg().keySet());
+        byte open = states.codeOf(OPEN);
+        byte blocked = states.codeOf(BLOCKED);
+        StateGrid grid = new StateGrid(myParser.getHeight(), myParser.getWidth());
+        CellRandom random = new CellRandom(seed);
+        for (int cell = 0; cell < grid.size(); cell++) {
+            grid.setState(cell, random.nextFloat(cell, 0) < myProbabilities[probability] ? open : blocked);
+        }
+        PercolationClusters clusters = new PercolationClusters(grid, myNeighbors, states);
+        add(probability, clusters.isSpanning(), (double) clusters.getLargestCluster() / grid.size());
+    }
+
+
+    private synchronized void add(int probability, boolean spanning, double largest){
+        if (spanning) {
+            mySpanning[probability]++;
+        }
+        myLargest[probability] += largest;
+    }
+
+
+    /**
+     * Writes the fraction of percolating grids and the mean largest cluster of every probability as CSV records
+     * @param output stream the records are written to
+     */
+    public synchronized void writeCSV(PrintStream output){
+        output.println("openProbability,runs,percolatingFraction,largestClusterFraction");
+        for (int probability = 0; probability < myProbabilities.length; probability++) {
+            output.println(myProbabilities[probability] + "," + mySeeds + "," + getPercolatingFraction(probability)
+                    + "," + myLargest[probability] / mySeeds);
+        }
+        output.flush();
+    }
+
+
+    private synchronized double getPercolatingFraction(int probability){
+        return (double) mySpanning[probability] / mySeeds;
+    }
+
+
+    /**
+     * @return the probability at which half of the grids percolate, interpolated between the given probabilities
+     * (taken in increasing order), or NaN if the fraction of percolating grids never crosses one half
+     */
+    public synchronized double estimateThreshold(){
+        for (int probability = 1; probability < myProbabilities.length; probability++) {
+            double below = getPercolatingFraction(probability - 1);
+            double above = getPercolatingFraction(probability);
+            if (below < CRITICAL_FRACTION && above >= CRITICAL_FRACTION) {
+                double fraction = (CRITICAL_FRACTION - below) / (above - below);
+                return myProbabilities[probability - 1]
+                        + fraction * (myProbabilities[probability] - myProbabilities[probability - 1]);
+            }
+        }
+        return Double.NaN;
+    }
+
+
+    /**
+     * Entry point of the threshold program
+     * @param args model name or XML file, and flags
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            exitWithUsage();
+        }
+        XMLAlert.setHeadless(true);
+        SimulationConfig config = new SimulationConfig(SimulationConfig.CONFIG_FILE_PATH);
+        double[] probabilities = null;
+        int seeds = 1;
+        int threads = config.getThreadCount();
+        String outPath = null;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                exitWithUsage();
+            }
+            switch (args[i]) {
+                case OPEN_FLAG:
+                    try {
+                        probabilities = ParameterSweep.parseValues(args[i + 1]);
+                    }
+                    catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage() + ": " + args[i + 1]);
+                        exitWithUsage();
+                    }
+                    break;
+                case SEEDS_FLAG:
+                    seeds = Integer.valueOf(args[i + 1]);
+                    break;
+                case THREADS_FLAG:
+                    threads = Integer.valueOf(args[i + 1]);
+                    break;
+                case OUT_FLAG:
+                    outPath = args[i + 1];
+                    break;
+                default:
+                    exitWithUsage();
+            }
+        }
+        if (probabilities == null) {
+            exitWithUsage();
+        }
+
+        XMLParser parser = new XMLParser(new File(config.getXMLPath(args[0])));
+        if (!config.validate(parser)) {
+            System.err.println("Simulation terminated.");
+            System.exit(1);
+        }
+        if (!parser.getStateImg().containsKey(OPEN) || !parser.getStateImg().containsKey(BLOCKED)) {
+            System.err.println(parser.getSimType() + " has no Open and Blocked states.");
+            System.exit(1);
+        }
+        PercolationThreshold threshold = new PercolationThreshold(parser, probabilities, seeds);
+        long start = System.nanoTime();
+        threshold.run(threads);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        PrintStream output = outPath == null ? System.out : new PrintStream(new File(outPath));
+        threshold.writeCSV(output);
+        if (output != System.out) {
+            output.close();
+        }
+        System.out.println(String.format("Checked %d grids of %dx%d cells on %d thread(s) in %.1f s; "
+                        + "estimated threshold %.4f", probabilities.length * seeds, parser.getWidth(),
+                parser.getHeight(), threads, seconds, threshold.estimateThreshold()));
+    }
+
+
+    private static void exitWithUsage(){
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,163 @@
+package CellSociety;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Number of cells in each state over the most recent generations, kept in primitive ring buffers of a fixed
+ * capacity so that memory stays constant however long a simulation runs; the oldest generations are dropped.
+ * For display, decimate() reduces a state's history to a bounded number of points that keep every local
+ * minimum and maximum, and writeCSV() exports the retained generations at full resolution.
+ * It has no JavaFX dependency so the chart and the HeadlessRunner can share it.
+ */
+public class PopulationHistory {
+    private final int myCapacity;
+    private final int myNumStates;
+    private final long[] myGenerations;
+    //counts of slot i are at i * numStates up to, but not including, (i + 1) * numStates
+    private final int[] myCounts;
+    private int myOldest;
+    private int mySize;
+
+    /**
+     * @param numStates number of states counted every generation
+     * @param capacity number of generations retained
+     */
+    public PopulationHistory(int numStates, int capacity){
+        myNumStates = numStates;
+        myCapacity = Math.max(1, capacity);
+        myGenerations = new long[myCapacity];
+        myCounts = new int[myCapacity * numStates];
+        clear();
+    }
+
+    /**
+     * Appends a generation, overwriting the oldest one once the history is full
+     * @param generation number of the generation
+     * @param population number of cells in each state, indexed by state code
+     */
+    public void record(long generation, int[] population){
+        int slot = (myOldest + mySize) % myCapacity;
+        if(mySize == myCapacity){
+            myOldest = (myOldest + 1) % myCapacity;
+        }
+        else{
+            mySize++;
+        }
+        myGenerations[slot] = generation;
+        System.arraycopy(population, 0, myCounts, slot * myNumStates, myNumStates);
+    }
+
+    /**
+     * Drops every recorded generation
+     */
+    public void clear(){
+        myOldest = 0;
+        mySize = 0;
+    }
+
+    /**
+     * @return number of generations currently retained
+     */
+    public int size(){
+        return mySize;
+    }
+
+    /**
+     * @return maximum number of generations retained
+     */
+    public int getCapacity(){
+        return myCapacity;
+    }
+
+    /**
+     * @param i position in the history, 0 being the oldest retained generation
+     * @return number of the generation at the position
+     */
+    public long getGeneration(int i){
+        return myGenerations[slot(i)];
+    }
+
+    /**
+     * @param i position in the history, 0 being the oldest retained generation
+     * @param state byte code of a state
+     * @return number of cells in the state at the position
+     */
+    public int getCount(int i, int state){
+        return myCounts[slot(i) * myNumStates + state];
+    }
+
+    /**
+     * Reduces the history of a state to at most maxPoints points for display. The history is split into
+     * maxPoints / 2 buckets of consecutive generations, and each bucket contributes its minimum and maximum
+     * in generation order, so spikes survive the decimation that plain subsampling would drop.
+     * Short histories are copied as they are.
+     * @param state byte code of a state
+     * @param maxPoints maximum number of points, at least 2
+     * @param generations array of at least maxPoints entries receiving the points' generations
+     * @param counts array of at least maxPoints entries receiving the points' counts
+     * @return number of points written
+     */
+    public int decimate(int state, int maxPoints, long[] generations, int[] counts){
+        if(mySize <= maxPoints){
+            for(int i = 0; i < mySize; i++){
+                generations[i] = getGeneration(i);
+                counts[i] = getCount(i, state);
+            }
+            return mySize;
+        }
+        int numBuckets = maxPoints / 2;
+        int numPoints = 0;
+        for(int bucket = 0; bucket < numBuckets; bucket++){
+            int from = (int) ((long) bucket * mySize / numBuckets);
+            int to = (int) ((long) (bucket + 1) * mySize / numBuckets);
+            int min = from;
+            int max = from;
+            for(int i = from + 1; i < to; i++){
+                int count = getCount(i, state);
+                if(count < getCount(min, state)){
+                    min = i;
+                }
+                if(count > getCount(max, state)){
+                    max = i;
+                }
+            }
+            numPoints = addPoint(Math.min(min, max), state, generations, counts, numPoints);
+            if(min != max){
+                numPoints = addPoint(Math.max(min, max), state, generations, counts, numPoints);
+            }
+        }
+        return numPoints;
+    }
+
+    /**
+     * Writes every retained generation as a CSV record, with a header of the state names
+     * @param output stream the records are written to
+     * @param stateNames names of the states in code order
+     */
+    public void writeCSV(PrintStream output, List<String> stateNames){
+        StringBuilder header = new StringBuilder("generation");
+        for(String state : stateNames){
+            header.append(',').append(state);
+        }
+        output.println(header);
+        for(int i = 0; i < mySize; i++){
+            StringBuilder record = new StringBuilder(Long.toString(getGeneration(i)));
+            for(int state = 0; state < myNumStates; state++){
+                record.append(',').append(getCount(i, state));
+            }
+            output.println(record);
+        }
+        output.flush();
+    }
+
+    private int addPoint(int i, int state, long[] generations, int[] counts, int numPoints){
+        generations[numPoints] = getGeneration(i);
+        counts[numPoints] = getCount(i, state);
+        return numPoints + 1;
+    }
+
+    private int slot(int i){
+        return (myOldest + i) % myCapacity;
+    }
+}
@@ -1,21 +1,29 @@
 package CellSociety;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import CellSociety.Engine.CellRandom;
+import CellSociety.Engine.EngineFactory;
+import CellSociety.Engine.GridEngine;
+import CellSociety.Engine.GridSnapshot;
+import CellSociety.Engine.ParameterBlock;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+import CellSociety.Metrics.MetricsRegistry;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.sun.javafx.application.PlatformImpl.exit;
-import static java.lang.Math.ceil;
 
 
 /**
@@ -24,6 +32,8 @@ import static java.lang.Math.ceil;
  * Control the simulation flow by invoking and connecting XMLParser, IntroScene, UI and Cell classes
  * Retrieve simulation configuration parameters from XMLParser and pass arguments into UI and Cells
  * Respond to user action of playing/resuming/stepping/switching simulation
+ * The engine is stepped by a SimulationRunner on its own thread, and an AnimationTimer draws the latest
+ * generation it published at the display's refresh rate
  */
 public class Simulation extends Application {
 
@@ -34,34 +44,42 @@ public class Simulation extends Application {
     static final String SEG_XML = "Segregation";
     static final String PERC_XML = "Percolation";
     static final String RPS_XML = "Rock Paper Scissors";
+    private static final long MILLIS_PER_SECOND = 1000;
+    // time allowed for a checkpoint still being written when the program exits
+    private static final long CHECKPOINT_EXIT_MILLIS = 10000;
+    private static final String CHECKPOINT_ALERT_HEADER = "Checkpoints could not be written to ";
 
     private int myWidth;
     private int myHeight;
     private double delay;
     private double minDelay;
     private double maxDelay;
-    private double distributionAccuracy;
     private String myTitle;
-    private List<String> SIM_TYPE_LIST = new ArrayList<>();
-    private Map<String,Integer> SIM_PARAM_NUM = new HashMap<>();
-    private Map<String,Integer> SIM_STATE_NUM = new HashMap<>();
+    private SimulationConfig myConfig;
 
-    private Timeline myTimeline;
+    private SimulationRunner myRunner;
+    private AnimationTimer myRenderer;
     private Stage myStage;
     private Cell[][] myGrid;
+    private GridEngine myEngine;
     private Scene myIntroScene;
     private UI myUIScene;
     private String SIM_TYPE;
+    private String simModel;
     private String cellShape;
     private String edgeType;
     private boolean specConfig = false;
-    private List<String> stateList;
-    private List<Double> parametersList;
+    private boolean exactCounts = false;
+    private ParameterBlock parameterBlock;
     private List<Integer> neighborList;
     private Map<String, String> stateImageMap;
     private Map<String, Double> statePercentMap;
-    private Map<List<Integer>,String> cellStateMap;
+    private byte[] cellStates;
+    private long mySeed;
     private XMLParser myParser;
+    private Checkpointer myCheckpointer;
+    private MetricsRegistry myMetrics;
+    private ConfigCache myConfigCache;
 
 
     /**
@@ -76,6 +94,9 @@ public class Simulation extends Application {
             System.out.println("Simulation configuration file not found.");
             throw e;
         }
+        myMetrics = new MetricsRegistry();
+        myMetrics.registerMBeans();
+        myConfigCache = new ConfigCache();
     }
 
 
@@ -84,22 +105,13 @@ public class Simulation extends Application {
      * @throws FileNotFoundException if the configuration file is not found
      */
     private void readConfig() throws FileNotFoundException {
-        Scanner sc = new Scanner(new File(configFilePath));
-        myTitle = sc.nextLine();
-        myWidth = Integer.valueOf(sc.nextLine());
-        myHeight = Integer.valueOf(sc.nextLine());
-        distributionAccuracy = Double.valueOf(sc.nextLine());
-        minDelay = Double.valueOf(sc.nextLine());
-        maxDelay = Double.valueOf(sc.nextLine());
+        myConfig = new SimulationConfig(configFilePath);
+        myTitle = myConfig.getTitle();
+        myWidth = myConfig.getWidth();
+        myHeight = myConfig.getHeight();
+        minDelay = myConfig.getMinDelay();
+        maxDelay = myConfig.getMaxDelay();
         delay = (minDelay+maxDelay)/2;
-        while(sc.hasNextLine()){
-            String modelName = sc.nextLine();
-            Integer paramNum = Integer.valueOf(sc.nextLine());
-            Integer stateNum = Integer.valueOf(sc.nextLine());
-            SIM_TYPE_LIST.add(modelName);
-            SIM_PARAM_NUM.put(modelName,paramNum);
-            SIM_STATE_NUM.put(modelName,stateNum);
-        }
     }
 
 
@@ -109,6 +121,7 @@ public class Simulation extends Application {
      */
     public void start(Stage stage) {
         this.myStage = stage;
+        initRenderer();
         initIntroScene();
     }
 
@@ -138,11 +151,69 @@ public class Simulation extends Application {
 
     /**
      * A private method that's expected to be called from switchSimulation() or resetSimulation()
-     * Initialize the grid of cells of a specific concrete cell class and set each cell's initial state
+     * Initialize the grid engine of the parsed simulation model and set each cell's initial state,
+     * reusing the grid of the current simulation if the new one has the same size
      * Then pipeline to the next step of creating UI scene for displaying visualization
-     * Terminate the initialization process if readXML() returns false
+     * Terminate the initialization process if readXML() returns false, leaving the current simulation running
      */
     private void initGrid() throws Exception{
+        GridEngine engine;
+        if(SIM_TYPE.endsWith(GridSnapshot.EXTENSION)){
+            engine = readSnapshot();
+            if(engine != null) stopSimulation();
+        }else{
+            engine = readXMLEngine();
+        }
+        if(engine == null) return;
+        myEngine = engine;
+        myEngine.setThreadCount(myConfig.getThreadCount());
+        myMetrics.reset();
+        myEngine.setMetrics(myMetrics);
+        initCheckpointer();
+        initCellViews();
+        myRunner = new SimulationRunner(myEngine, myConfig.getHistoryCapacity(), createAfterStep());
+        myRunner.setDelay(delay);
+        initUI();
+    }
+
+
+    /**
+     * Start writing periodic checkpoints of the new simulation, if enabled in the configuration file
+     */
+    private void initCheckpointer(){
+        if(myCheckpointer != null){
+            myCheckpointer.shutdown();
+            myCheckpointer = null;
+        }
+        if(myConfig.isCheckpointing()){
+            myCheckpointer = new Checkpointer(Paths.get(myConfig.getCheckpointFolder()), simModel,
+                    myConfig.getCheckpointGenerations(), myConfig.getCheckpointSeconds() * MILLIS_PER_SECOND,
+                    myConfig.getCheckpointKeep(), myEngine.getGeneration());
+        }
+    }
+
+
+    /**
+     * Stop stepping the current simulation, if any, before the next one replaces it
+     * The engine is kept until then, so that its grid can be refilled with the next simulation's states
+     */
+    private void stopSimulation(){
+        if(myRunner != null){
+            myRunner.stop();
+        }
+        if(myEngine != null){
+            myEngine.shutdown();
+        }
+    }
+
+
+    /**
+     * Parse the XML file and create the engine of its simulation model
+     * Once the file is valid the current simulation is stopped, and its grid is refilled rather than
+     * allocated again if it has the new simulation's size
+     * @return GridEngine holding the initial states, or null if the file is invalid
+     */
+    private GridEngine readXMLEngine() throws Exception{
         boolean parsingSuccess = false;
         try{
             parsingSuccess = readXML();
@@ -151,90 +222,70 @@ public class Simulation extends Application {
             myParser.parserConfigAlert.showAlert();
             throw e;
         }
-        if(!parsingSuccess) return;
-        myGrid = new Cell[myHeight][myWidth];
-        initStateList();
-        for (int i = 0; i < myGrid.length; i++) {
-            for (int j = 0; j < myGrid[0].length; j++) {
-                Cell currCell = null;
-                String currCellState = defineState(i,j);
-                ArrayList<Double> params = new ArrayList<>(parametersList);
-                switch (SIM_TYPE) {
-                    case GOL_XML:
-                        currCell = new CellGameOfLife(i, j, currCellState, params);
-                        break;
-                    case WATOR_XML:
-                        currCell = new CellWATOR(i, j, currCellState, params);
-                        break;
-                    case FIRE_XML:
-                        currCell = new CellFire(i, j, currCellState, params);
-                        break;
-                    case SEG_XML:
-                        currCell = new CellSegregation(i, j, currCellState, params);
-                        break;
-                    case PERC_XML:
-                        currCell = new CellPercolation(i, j, currCellState, params);
-                        break;
-                    case RPS_XML:
-                        currCell = new CellRPS(i, j, currCellState, params);
-                        break;
-                }
-                myGrid[i][j] = currCell;
-            }
+        if(!parsingSuccess) return null;
+        stopSimulation();
+        StateDictionary states = new StateDictionary(stateImageMap.keySet());
+        StateGrid stateGrid;
+        if(myEngine != null && myEngine.getGrid().getRows() == myHeight && myEngine.getGrid().getCols() == myWidth){
+            stateGrid = myEngine.getGrid();
+            EngineFactory.fillGrid(stateGrid, states, statePercentMap, cellStates, specConfig, exactCounts,
+                    mySeed);
+        }else{
+            stateGrid = EngineFactory.createGrid(myHeight, myWidth, states, statePercentMap, cellStates,
+                    specConfig, exactCounts, mySeed);
         }
-        initNeighbors();
-        initUI();
-        initTimeline();
+        return EngineFactory.create(simModel, cellShape, edgeType, neighborList, parameterBlock, states, stateGrid,
+                mySeed);
     }
 
 
     /**
-     * Initialize a list of states with/without the percentage distribution read from XML file
+     * Read a GridSnapshot file and resume its simulation at the generation it was saved at
+     * @return GridEngine holding the saved states, or null if the file cannot be read
      */
-    private void initStateList() {
-        this.stateList = new ArrayList<>();
-        if(statePercentMap.size()==0){
-            stateList.addAll(stateImageMap.keySet());
-        }else{
-            for (Map.Entry<String,Double> entry : statePercentMap.entrySet()) {
-                for (int i = 0; i < ceil(entry.getValue() * distributionAccuracy); i++) {
-                    stateList.add(entry.getKey());
-                }
-            }
+    private GridEngine readSnapshot(){
+        GridSnapshot snapshot;
+        GridEngine engine;
+        try{
+            snapshot = GridSnapshot.read(Paths.get(SIM_TYPE));
+            engine = snapshot.createEngine();
+        }catch (IOException | IllegalArgumentException e){
+            new XMLAlert("Alert", SIM_TYPE, e.getMessage()).showAlert();
+            return null;
         }
+        this.simModel = snapshot.getSimType();
+        this.myWidth = snapshot.getCols();
+        this.myHeight = snapshot.getRows();
+        this.cellShape = snapshot.getCellShape();
+        this.edgeType = snapshot.getEdgeType();
+        this.neighborList = snapshot.getNeighbors();
+        this.parameterBlock = engine.getRule() == null
+                ? new ParameterBlock(snapshot.getParameters()) : engine.getRule().getParameters();
+        this.stateImageMap = snapshot.getStateImages();
+        return engine;
     }
 
 
     /**
-     * Generate state for the current cell based on simulation configuration read from XML file
-     * @param row Row index of the cell
-     * @param col Column index of the cell
-     * @return a String indicating the cell's initial state
+     * Save the current generation of the simulation as a GridSnapshot file, from which it can be resumed
+     * Expected to be called by UI between two generations, when a save button is pressed
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
      */
-    private String defineState(int row, int col){
-        Random myRandom = new Random();
-        int randIdx = myRandom.nextInt(stateList.size());
-        if(this.specConfig){
-            List<Integer> cellIdx = Arrays.asList(row,col);
-            return cellStateMap.get(cellIdx);
-        }else{
-            return stateList.get(randIdx);
-        }
+    public void saveSnapshot(File file) throws IOException{
+        GridSnapshot snapshot = myRunner.call(() -> new GridSnapshot(simModel, cellShape, edgeType, neighborList,
+                parameterBlock.toList(), stateImageMap, myEngine).copy(null));
+        snapshot.write(file.toPath());
     }
 
 
     /**
-     * Loop through all cells in the grid and initialize neighbors for each cell
+     * Drop the grid of Cells if the new simulation has another size; CellViews present the current engine's
+     * states, so a grid of the same size is kept, and getGrid() only creates one once something asks for it
      */
-    private void initNeighbors(){
-        int i = 0;
-        for (Cell[] row :myGrid) {
-            int j = 0;
-            for (Cell currCell:row) {
-                currCell.findNeighbors(myGrid,cellShape,edgeType,neighborList);
-                j++;
-            }
-            i++;
+    private void initCellViews(){
+        if(myGrid != null && (myGrid.length != myHeight || myGrid[0].length != myWidth)){
+            myGrid = null;
         }
     }
 
@@ -245,8 +296,7 @@ public class Simulation extends Application {
     private void initUI() {
         Group myUIRoot = new Group();
         //myUIScene = new UI(myUIRoot, myWidth, myHeight, this);
-        myUIScene = new UI(myUIRoot, myWidth, myHeight, cellShape, parametersList, this);
-        myUIScene.drawGrid();
+        myUIScene = new UI(myUIRoot, myWidth, myHeight, cellShape, parameterBlock, this, myUIScene);
         myUIScene.drawGraph();
         myStage.setScene(myUIScene);
         myStage.show();
@@ -254,78 +304,121 @@ public class Simulation extends Application {
 
 
     /**
-     * Initialize a new timeline for the simulation
-     * updateGrid() is called by eventHandler of the frame each 'delay' interval
+     * Initialize the timer that runs once per display refresh, drawing the latest generation published
+     * by the runner, if any, and skipping the generations stepped in between
      */
-    private void initTimeline() {
-        var frame = new KeyFrame(Duration.millis(delay), e -> updateGrid());
-        this.myTimeline = new Timeline();
-        this.myTimeline.setCycleCount(Timeline.INDEFINITE);
-        this.myTimeline.getKeyFrames().add(frame);
-    }
-
-
-    /**
-     * Check for error in XML parsing results. Terminate further grid initialization if invalid.
-     * @param parser XMLParser object which handled the input file
-     * @return boolean value indicating whether the parsed information is valid
-     */
-    private boolean validateSimulation(XMLParser parser){
-        if(!SIM_TYPE_LIST.contains(parser.getSimType())){
-            myParser.modelErrAlert.showAlert();
-            return false;
-        }else if(SIM_PARAM_NUM.get(parser.getSimType())!=parser.getParameters().size()){
-            myParser.paramErrAlert.showAlert();
-            return false;
-        }else if(SIM_STATE_NUM.get(parser.getSimType())!=parser.getStateImg().keySet().size()){
-            myParser.stateErrAlert.showAlert();
-            return false;
-        }
-        return parser.isParseSuccess();
+    private void initRenderer() {
+        this.myRenderer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if(myRunner == null) return;
+                GridFrame frame = myRunner.takeFrame();
+                if(frame != null){
+                    try{
+                        myUIScene.drawGrid(frame);
+                    }finally{
+                        myRunner.releaseFrame(frame);
+                    }
+                }
+                myUIScene.drawStatus(now);
+            }
+        };
+        this.myRenderer.start();
     }
 
 
     /**
      * Read XML file containing simulation parameters
+     * Files parsed before are taken from the ConfigCache unless they changed on disk since
      */
     private boolean readXML() throws Exception{
-        String myFilePath;
-        if(SIM_TYPE_LIST.contains(SIM_TYPE)){
-            myFilePath = "resources/"+SIM_TYPE+".xml";
-        }else{
-            myFilePath = SIM_TYPE;
-        }
-        File f = new File(myFilePath);
+        File f = new File(myConfig.getXMLPath(SIM_TYPE));
         try{
-            myParser= new XMLParser(f);
+            myParser= myConfigCache.parse(f);
         }catch (Exception e){
             throw e;
         }
-        if(!validateSimulation(myParser)) {
+        if(!myConfig.validate(myParser)) {
             return false;
         }
+        this.simModel = myParser.getSimType();
         this.myWidth = myParser.getWidth();
         this.myHeight = myParser.getHeight();
         this.specConfig = myParser.isSpecConfig();
+        this.exactCounts = myParser.isExactCounts();
         this.cellShape = myParser.getCellShape();
         this.edgeType = myParser.getEdgeType();
         this.neighborList = myParser.getNeighbors();
-        this.parametersList = myParser.getParameters();
+        this.parameterBlock = new ParameterBlock(myParser.getParameters());
         this.stateImageMap = myParser.getStateImg();
         this.statePercentMap = myParser.getStatePercent();
-        this.cellStateMap = myParser.getCellState();
+        this.cellStates = myParser.getCellStates();
+        this.mySeed = myParser.getSeed() == null ? CellRandom.newSeed() : myParser.getSeed();
         return true;
     }
 
 
     /**
-     * @return the 2D array of Cells for this simulation
+     * @return the 2D array of Cells for this simulation, created when first asked for
+     * UI only goes through the engine, so large grids never create their CellViews
      */
     public Cell[][] getGrid() {
+        if(myGrid == null){
+            myGrid = new Cell[myHeight][myWidth];
+            for (int i = 0; i < myHeight; i++) {
+                for (int j = 0; j < myWidth; j++) {
+                    myGrid[i][j] = new CellView(i, j, this);
+                }
+            }
+        }
         return this.myGrid;
     }
 
 
+    /**
+     * @return the GridEngine stepping the current simulation
+     */
+    public GridEngine getEngine() {
+        return this.myEngine;
+    }
+
+
+    /**
+     * @return true if the grid has more cells than the configured threshold for drawing it
+     * into a single GridCanvas instead of one Polygon per cell
+     */
+    public boolean useGridCanvas() {
+        return (long) myWidth * myHeight > myConfig.getCanvasThreshold();
+    }
+
+
+    /**
+     * @return population history of the current simulation, recorded by the runner thread
+     * and to be locked while it is read
+     */
+    public PopulationHistory getHistory() {
+        return myRunner.getHistory();
+    }
+
+
+    /**
+     * @return MetricsRegistry of the engine's phases, in which UI records how long drawing takes
+     */
+    public MetricsRegistry getMetrics() {
+        return myMetrics;
+    }
+
+
+    /**
+     * Change the engine between two generations, e.g. to switch the state of a clicked cell
+     * Expected to be called by UI, which must not touch the engine while the runner thread steps it
+     * @param task code reading or changing the engine
+     */
+    public void runBetweenGenerations(Runnable task) {
+        myRunner.runBetweenGenerations(task);
+    }
+
+
     /**
      * @return an immutable map associating state and corresponding image visualization
      */
@@ -335,21 +428,36 @@ public class Simulation extends Application {
 
 
     /**
-     * Update all Cells' states in the grid
+     * Create the task the runner thread calls after every generation, writing a checkpoint when one is due
+     * The task keeps the description of the simulation it is created for, since readXML() and readSnapshot()
+     * overwrite the fields with the next simulation while the runner may still be finishing a generation
+     * The first checkpoint that cannot be written is reported with an alert; later ones are not, so that a full
+     * disk doesn't pop up an alert at every interval
      */
-    private void updateGrid() {
-        for (Cell[] row : myGrid) {
-            for (Cell currCell:row) {
-                currCell.findNextState();
+    private Runnable createAfterStep() {
+        Checkpointer checkpointer = myCheckpointer;
+        GridEngine engine = myEngine;
+        String model = simModel;
+        String shape = cellShape;
+        String edges = edgeType;
+        List<Integer> neighbors = neighborList;
+        ParameterBlock parameters = parameterBlock;
+        Map<String, String> stateImages = stateImageMap;
+        AtomicBoolean isErrorReported = new AtomicBoolean();
+        return () -> {
+            if(checkpointer == null){
+                return;
             }
-        }
-        for (Cell[] row : myGrid) {
-            for (Cell currCell:row) {
-                currCell.updateState();
+            if(checkpointer.isDue(engine.getGeneration())){
+                checkpointer.checkpoint(new GridSnapshot(model, shape, edges, neighbors, parameters.toList(),
+                        stateImages, engine));
             }
-        }
-        this.myUIScene.drawGrid();
-        this.myUIScene.drawGraph();
+            IOException error = checkpointer.getLastError();
+            if(error != null && !isErrorReported.getAndSet(true)){
+                String header = CHECKPOINT_ALERT_HEADER + myConfig.getCheckpointFolder();
+                Platform.runLater(() -> new XMLAlert("Alert", header, error.toString()).showAlert());
+            }
+        };
     }
 
 
@@ -373,7 +481,7 @@ public class Simulation extends Application {
      * Expected to be called by UI when a pause button is pressed
      */
     public void pauseSimulation() {
-        this.myTimeline.stop();
+        this.myRunner.pause();
     }
 
 
@@ -382,7 +490,7 @@ public class Simulation extends Application {
      * Expected to be called by UI when a start/resume button is pressed
      */
     public void playSimulation() {
-        this.myTimeline.play();
+        this.myRunner.play();
     }
 
 
@@ -391,8 +499,7 @@ public class Simulation extends Application {
      * Expected to be called by UI when a step button is pressed
      */
     public void stepSimulation() {
-        this.myTimeline.pause();
-        updateGrid();
+        this.myRunner.step();
     }
 
 
@@ -401,7 +508,7 @@ public class Simulation extends Application {
      * and still remain in the same simulation model
      */
     public void resetSimulation(){
-        this.myTimeline.pause();
+        this.myRunner.pause();
         this.delay = (minDelay+maxDelay)/2;
         try {
             initGrid();
@@ -419,7 +526,7 @@ public class Simulation extends Application {
      * @param newSimType path to the XML file for the new Simulation
      */
     public void switchSimulation(String newSimType){
-        this.myTimeline.stop();
+        this.myRunner.pause();
         this.setSimType(newSimType);
         try{
             initGrid();
@@ -433,18 +540,13 @@ public class Simulation extends Application {
 
 
     /**
-     * Modify the simulation speed by adjusting delay time between frames based on the passed-in double
-     * The double passed in is expected to be between 0 and 1
+     * Modify the simulation speed by adjusting delay time between generations based on the passed-in double
+     * The double passed in is expected to be between 0 and 1; with a minimum delay of 0, 1 steps the engine
+     * as fast as it can
      */
     public void setSpeed(Double d) {
-        this.myTimeline.stop();
         this.delay = maxDelay-d*(maxDelay-minDelay);
-        if(this.myTimeline.getStatus()== Animation.Status.RUNNING){
-            initTimeline();
-            playSimulation();
-        }else{
-            initTimeline();
-        }
+        this.myRunner.setDelay(delay);
     }
 
 
@@ -456,6 +558,29 @@ public class Simulation extends Application {
     }
 
 
+    /**
+     * @return path to the most recent checkpoint in the checkpoint folder, or null if there is none
+     */
+    public String getLatestCheckpoint() {
+        Path latest = Checkpointer.findLatest(Paths.get(myConfig.getCheckpointFolder()));
+        return latest == null ? null : latest.toString();
+    }
+
+
+    /**
+     * Stop the runner thread and give a checkpoint still being written time to finish when the program exits
+     */
+    @Override
+    public void stop() throws Exception {
+        if(myRunner != null){
+            myRunner.stop();
+        }
+        if(myCheckpointer != null){
+            myCheckpointer.awaitWrites(CHECKPOINT_EXIT_MILLIS);
+        }
+    }
+
+
     /**
      * Main method to launch the Breakout game program.
      */
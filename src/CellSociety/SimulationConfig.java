@@ -0,0 +1,248 @@
+package CellSociety;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * General configuration of the program read from SimulationConfig.txt: title, default grid size, delay bounds,
+ * number of threads, the number of cells above which the grid is drawn into a single image, the number of
+ * generations the population chart retains, where and how often checkpoints
+ * are written and how many are kept, and the valid simulation models with their numbers of parameters and states.
+ * A number of parameters or states followed by + is the least number a model needs, which can have more
+ * (e.g. the optional parameters of Segregation or the species of RPS).
+ * It has no JavaFX dependency so that Simulation and the HeadlessRunner can share it.
+ */
+public class SimulationConfig {
+    static final String CONFIG_FILE_PATH = "resources/SimulationConfig.txt";
+    static final String XML_FOLDER = "resources/";
+    static final String XML_EXTENSION = ".xml";
+    static final String AT_LEAST = "+";
+
+    private String myTitle;
+    private int myWidth;
+    private int myHeight;
+    private double myMinDelay;
+    private double myMaxDelay;
+    private int myThreadCount;
+    private long myCanvasThreshold;
+    private int myHistoryCapacity;
+    private String myCheckpointFolder;
+    private long myCheckpointGenerations;
+    private long myCheckpointSeconds;
+    private int myCheckpointKeep;
+    private List<String> SIM_TYPE_LIST = new ArrayList<>();
+    private Map<String,Integer> SIM_PARAM_NUM = new HashMap<>();
+    private Map<String,Integer> SIM_STATE_NUM = new HashMap<>();
+    private Set<String> SIM_MORE_PARAMS = new HashSet<>();
+    private Set<String> SIM_MORE_STATES = new HashSet<>();
+
+
+    /**
+     * Read the configuration text file for basic parameters (default size, simulation delay, number of threads
+     * for stepping the grid, etc.); a thread count of 0 uses all available processors, and grids with more cells
+     * than the canvas threshold are drawn into a GridCanvas; checkpoint intervals of 0 generations and 0 seconds
+     * disable checkpoints
+     * @param path path to the configuration text file
+     * @throws FileNotFoundException if the configuration file is not found
+     */
+    public SimulationConfig(String path) throws FileNotFoundException {
+        Scanner sc = new Scanner(new File(path));
+        myTitle = sc.nextLine();
+        myWidth = Integer.valueOf(sc.nextLine());
+        myHeight = Integer.valueOf(sc.nextLine());
+        myMinDelay = Double.valueOf(sc.nextLine());
+        myMaxDelay = Double.valueOf(sc.nextLine());
+        myThreadCount = Integer.valueOf(sc.nextLine());
+        if(myThreadCount <= 0){
+            myThreadCount = Runtime.getRuntime().availableProcessors();
+        }
+        myCanvasThreshold = Long.valueOf(sc.nextLine());
+        myHistoryCapacity = Integer.valueOf(sc.nextLine());
+        myCheckpointFolder = sc.nextLine();
+        myCheckpointGenerations = Long.valueOf(sc.nextLine());
+        myCheckpointSeconds = Long.valueOf(sc.nextLine());
+        myCheckpointKeep = Integer.valueOf(sc.nextLine());
+        while(sc.hasNextLine()){
+            String modelName = sc.nextLine();
+            String paramText = sc.nextLine();
+            if(paramText.endsWith(AT_LEAST)){
+                SIM_MORE_PARAMS.add(modelName);
+                paramText = paramText.substring(0, paramText.length() - AT_LEAST.length());
+            }
+            Integer paramNum = Integer.valueOf(paramText);
+            String stateText = sc.nextLine();
+            if(stateText.endsWith(AT_LEAST)){
+                SIM_MORE_STATES.add(modelName);
+                stateText = stateText.substring(0, stateText.length() - AT_LEAST.length());
+            }
+            Integer stateNum = Integer.valueOf(stateText);
+            SIM_TYPE_LIST.add(modelName);
+            SIM_PARAM_NUM.put(modelName,paramNum);
+            SIM_STATE_NUM.put(modelName,stateNum);
+        }
+    }
+
+
+    /**
+     * Check for error in XML parsing results against the valid simulation models, popping up the parser's alerts
+     * @param parser XMLParser object which handled the input file
+     * @return boolean value indicating whether the parsed information is valid
+     */
+    public boolean validate(XMLParser parser){
+        if(!SIM_TYPE_LIST.contains(parser.getSimType())){
+            parser.modelErrAlert.showAlert();
+            return false;
+        }else if(!isValidParamNum(parser.getSimType(), parser.getParameters().size())){
+            parser.paramErrAlert.showAlert();
+            return false;
+        }else if(!isValidStateNum(parser.getSimType(), parser.getStateImg().keySet().size())){
+            parser.stateErrAlert.showAlert();
+            return false;
+        }
+        return parser.isParseSuccess();
+    }
+
+
+    private boolean isValidParamNum(String simType, int paramNum){
+        int expected = SIM_PARAM_NUM.get(simType);
+        return SIM_MORE_PARAMS.contains(simType) ? paramNum >= expected : paramNum == expected;
+    }
+
+
+    private boolean isValidStateNum(String simType, int stateNum){
+        int expected = SIM_STATE_NUM.get(simType);
+        return SIM_MORE_STATES.contains(simType) ? stateNum >= expected : stateNum == expected;
+    }
+
+
+    /**
+     * @param simType name of a simulation model, or path to an XML file
+     * @return path to the XML file of the model, or the given path if it is not a model name
+     */
+    public String getXMLPath(String simType){
+        if(SIM_TYPE_LIST.contains(simType)){
+            return XML_FOLDER + simType + XML_EXTENSION;
+        }
+        return simType;
+    }
+
+
+    /**
+     * @return immutable list of the valid simulation model names
+     */
+    public List<String> getSimTypes(){
+        return Collections.unmodifiableList(SIM_TYPE_LIST);
+    }
+
+
+    /**
+     * @return title of the program window
+     */
+    public String getTitle(){
+        return myTitle;
+    }
+
+
+    /**
+     * @return default number of cells per row
+     */
+    public int getWidth(){
+        return myWidth;
+    }
+
+
+    /**
+     * @return default number of cell rows
+     */
+    public int getHeight(){
+        return myHeight;
+    }
+
+
+    /**
+     * @return minimum delay between generations in milliseconds, 0 to step the engine as fast as it can
+     */
+    public double getMinDelay(){
+        return myMinDelay;
+    }
+
+
+    /**
+     * @return maximum delay between generations in milliseconds
+     */
+    public double getMaxDelay(){
+        return myMaxDelay;
+    }
+
+
+    /**
+     * @return number of threads for stepping the grid
+     */
+    public int getThreadCount(){
+        return myThreadCount;
+    }
+
+
+    /**
+     * @return number of cells above which the UI draws the grid into a single image
+     */
+    public long getCanvasThreshold(){
+        return myCanvasThreshold;
+    }
+
+
+    /**
+     * @return number of generations the population chart retains
+     */
+    public int getHistoryCapacity(){
+        return myHistoryCapacity;
+    }
+
+
+    /**
+     * @return folder checkpoints are written to and resumed from
+     */
+    public String getCheckpointFolder(){
+        return myCheckpointFolder;
+    }
+
+
+    /**
+     * @return number of generations between two checkpoints, 0 if checkpoints are not counted in generations
+     */
+    public long getCheckpointGenerations(){
+        return myCheckpointGenerations;
+    }
+
+
+    /**
+     * @return number of seconds between two checkpoints, 0 if checkpoints are not counted in seconds
+     */
+    public long getCheckpointSeconds(){
+        return myCheckpointSeconds;
+    }
+
+
+    /**
+     * @return number of most recent checkpoints kept of each simulation model
+     */
+    public int getCheckpointKeep(){
+        return myCheckpointKeep;
+    }
+
+
+    /**
+     * @return true if checkpoints are written at all
+     */
+    public boolean isCheckpointing(){
+        return myCheckpointGenerations > 0 || myCheckpointSeconds > 0;
+    }
+}
@@ -0,0 +1,342 @@
+package CellSociety;
+
+import CellSociety.Engine.GridEngine;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Steps a GridEngine on its own thread, so that the speed of a simulation is not tied to the UI's frame rate
+ * and a heavy generation never freezes the UI. With a delay of 0 the engine runs at full speed.
+ *
+ * The engine is only touched by the runner's thread: anything else that reads or changes it (clicks on cells,
+ * saving a snapshot) is queued with runBetweenGenerations() or call() and runs between two generations.
+ * The UI takes the latest GridFrame with takeFrame() once per display refresh and hands it back with
+ * releaseFrame(). Two frames circulate, and the runner only copies the grid into one when the UI has taken
+ * the previous one, so the generations in between are skipped by the display rather than copied. The runner
+ * never waits for a frame: if none is free, the generation is simply not published.
+ * The runner keeps the cells that changed since the last published frame in a bitset and a list, and a frame
+ * only carries those cells, with the changes of a frame the UI never took added in. Once they are more than
+ * a frame can list, or a queued task may have changed any cell, the frame copies the whole grid instead.
+ * The population of every generation is recorded in the runner's PopulationHistory, which has to be
+ * locked while it is read.
+ */
+public class SimulationRunner {
+    private static final long NANOS_PER_MILLI = 1000000;
+    private static final Runnable WAKE_UP = () -> {};
+    private static final int NUM_FRAMES = 2;
+    //a frame lists at most this fraction of the cells, beyond which comparing the whole grid is about as fast
+    private static final int LISTED_CELLS_DIVISOR = 8;
+    private static final int MARK_SHIFT = 6;
+
+    private final GridEngine myEngine;
+    private final Runnable myAfterStep;
+    private final PopulationHistory myHistory;
+    private final int[] myPopulation;
+    private final BlockingQueue<Runnable> myTasks;
+    private final AtomicReference<GridFrame> myLatest;
+    //free frames, with a slot for every frame so that a released frame always finds an empty one
+    private final AtomicReferenceArray<GridFrame> mySpares;
+    private final Thread myThread;
+    private final Runnable myAdvance;
+    //cells changed since the last published frame, unless all of them are to be published
+    private final long[] myChangedMarks;
+    private final int[] myChangedCells;
+    private int myNumChangedCells;
+    private boolean isAllChanged;
+
+    private volatile boolean isRunning;
+    private volatile boolean isStopped;
+    private volatile long myDelayNanos;
+
+    /**
+     * Creates a paused runner and publishes the engine's current generation
+     * @param engine GridEngine of the simulation, not to be touched by other threads from now on
+     * @param historyCapacity number of generations the population history retains
+     * @param afterStep called on the runner's thread after every generation, e.g. to write checkpoints
+     */
+    public SimulationRunner(GridEngine engine, int historyCapacity, Runnable afterStep){
+        myEngine = engine;
+        myAfterStep = afterStep;
+        int numStates = engine.getStates().size();
+        myHistory = new PopulationHistory(numStates, historyCapacity);
+        myPopulation = new int[numStates];
+        myTasks = new LinkedBlockingQueue<>();
+        myLatest = new AtomicReference<>();
+        int size = engine.getGrid().size();
+        myChangedMarks = new long[(size >>> MARK_SHIFT) + 1];
+        myChangedCells = new int[size / LISTED_CELLS_DIVISOR];
+        isAllChanged = true;
+        mySpares = new AtomicReferenceArray<>(NUM_FRAMES);
+        for(int i = 0; i < NUM_FRAMES; i++){
+            mySpares.set(i, new GridFrame(size, myChangedCells.length));
+        }
+        myAdvance = this::advance;
+        record();
+        publish(true);
+        myThread = new Thread(this::run, "SimulationRunner");
+        myThread.setDaemon(true);
+        myThread.start();
+    }
+
+    //steps while running and runs the queued tasks, waiting out the delay between two generations
+    private void run(){
+        long nextStep = System.nanoTime();
+        while(!isStopped){
+            Runnable task;
+            try{
+                long wait = nextStep - System.nanoTime();
+                if(!isRunning){
+                    task = myTasks.take();
+                }
+                else if(wait > 0){
+                    task = myTasks.poll(wait, TimeUnit.NANOSECONDS);
+                }
+                else{
+                    task = myTasks.poll();
+                }
+            }
+            catch(InterruptedException e){
+                return;
+            }
+            if(task != null){
+                task.run();
+                if(task != WAKE_UP && task != myAdvance){
+                    isAllChanged = true;
+                }
+                publish(true);
+            }
+            else if(isRunning){
+                nextStep = System.nanoTime() + myDelayNanos;
+                advance();
+                publish(false);
+            }
+        }
+    }
+
+    //advances the engine one generation
+    private void advance(){
+        myEngine.step();
+        addChanged(myEngine.getChanged(), myEngine.getNumChanged());
+        record();
+        myAfterStep.run();
+    }
+
+    private void record(){
+        myEngine.getPopulation(myPopulation);
+        synchronized(myHistory){
+            myHistory.record(myEngine.getGeneration(), myPopulation);
+        }
+    }
+
+    //fills a free frame with the changes since the last published one; unless forced, only once the UI took
+    //the last one
+    private void publish(boolean force){
+        if(!force && myLatest.get() != null){
+            return;
+        }
+        GridFrame unseen = myLatest.getAndSet(null);
+        if(unseen != null){
+            //the UI never drew it, so its changes are published with the next frame
+            addChanged(unseen);
+        }
+        GridFrame frame = takeSpare();
+        if(frame == null){
+            frame = unseen;
+        }
+        else if(unseen != null){
+            releaseFrame(unseen);
+        }
+        if(frame == null){
+            //only if the UI kept a frame instead of handing it back; the changes wait for the next frame
+            return;
+        }
+        if(isAllChanged){
+            frame.fillAll(myEngine);
+        }
+        else{
+            frame.fillCells(myEngine, myChangedCells, myNumChangedCells);
+        }
+        clearChanged();
+        myLatest.set(frame);
+    }
+
+    private void addChanged(GridFrame frame){
+        if(frame.isWhole()){
+            isAllChanged = true;
+        }
+        else{
+            addChanged(frame.getCells(), frame.getNumCells());
+        }
+    }
+
+    //adds cells to the union of changes, giving up on listing them once a frame could not hold them
+    private void addChanged(int[] cells, int count){
+        if(count < 0){
+            isAllChanged = true;
+        }
+        for(int i = 0; i < count && !isAllChanged; i++){
+            int cell = cells[i];
+            long mark = 1L << cell;
+            if((myChangedMarks[cell >>> MARK_SHIFT] & mark) != 0){
+                continue;
+            }
+            if(myNumChangedCells == myChangedCells.length){
+                isAllChanged = true;
+                return;
+            }
+            myChangedMarks[cell >>> MARK_SHIFT] |= mark;
+            myChangedCells[myNumChangedCells++] = cell;
+        }
+    }
+
+    private void clearChanged(){
+        if(isAllChanged){
+            Arrays.fill(myChangedMarks, 0);
+        }
+        else{
+            for(int i = 0; i < myNumChangedCells; i++){
+                myChangedMarks[myChangedCells[i] >>> MARK_SHIFT] = 0;
+            }
+        }
+        myNumChangedCells = 0;
+        isAllChanged = false;
+    }
+
+    private GridFrame takeSpare(){
+        for(int i = 0; i < NUM_FRAMES; i++){
+            GridFrame frame = mySpares.getAndSet(i, null);
+            if(frame != null){
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the latest published frame, or null if no generation was published since the last call;
+     * it has to be handed back with releaseFrame() once drawn
+     */
+    public GridFrame takeFrame(){
+        return myLatest.getAndSet(null);
+    }
+
+    /**
+     * @param frame frame returned by takeFrame(), which the runner may now overwrite
+     */
+    public void releaseFrame(GridFrame frame){
+        for(int i = 0; i < NUM_FRAMES; i++){
+            if(mySpares.compareAndSet(i, null, frame)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Steps the engine continuously, waiting the delay between two generations
+     */
+    public void play(){
+        isRunning = true;
+        myTasks.add(WAKE_UP);
+    }
+
+    /**
+     * Stops stepping, waiting for the generation in progress to complete
+     */
+    public void pause(){
+        isRunning = false;
+        call(() -> null);
+    }
+
+    /**
+     * Pauses and advances the engine a single generation
+     */
+    public void step(){
+        isRunning = false;
+        myTasks.add(myAdvance);
+    }
+
+    /**
+     * @param millis delay between the start of two generations in milliseconds, 0 to step as fast as possible
+     */
+    public void setDelay(double millis){
+        myDelayNanos = (long) (Math.max(0, millis) * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Runs a task on the runner's thread between two generations, after which the grid is published again
+     * @param task code reading or changing the engine
+     */
+    public void runBetweenGenerations(Runnable task){
+        myTasks.add(task);
+    }
+
+    /**
+     * Runs a task on the runner's thread between two generations and waits for its result
+     * @param task code reading or changing the engine
+     * @return the result of the task
+     */
+    public <T> T call(Supplier<T> task){
+        FutureTask<T> future = new FutureTask<>(task::get);
+        if(isStopped || Thread.currentThread() == myThread){
+            future.run();
+        }
+        else{
+            myTasks.add(future);
+        }
+        try{
+            return future.get();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch(ExecutionException e){
+            if(e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Stops the thread once the generation in progress is complete; the runner cannot be restarted
+     */
+    public void stop(){
+        isStopped = true;
+        myTasks.add(WAKE_UP);
+        boolean isInterrupted = false;
+        while(myThread.isAlive() && Thread.currentThread() != myThread){
+            try{
+                myThread.join();
+            }
+            catch(InterruptedException e){
+                isInterrupted = true;
+            }
+        }
+        if(isInterrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true if the engine is stepped continuously
+     */
+    public boolean isRunning(){
+        return isRunning;
+    }
+
+    /**
+     * @return population history of every generation stepped, to be locked while it is read
+     */
+    public PopulationHistory getHistory(){
+        return myHistory;
+    }
+}
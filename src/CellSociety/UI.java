@@ -1,5 +1,13 @@
 package CellSociety;
 
+import CellSociety.CellShapes.CellGeometry;
+import CellSociety.Engine.GridEngine;
+import CellSociety.Engine.GridSnapshot;
+import CellSociety.Engine.ParameterBlock;
+import CellSociety.Engine.StateDictionary;
+import CellSociety.Engine.StateGrid;
+import CellSociety.Metrics.Histogram;
+import CellSociety.Metrics.MetricsRegistry;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -18,6 +26,12 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
 
 import java.util.*;
 
@@ -28,6 +42,9 @@ import java.util.*;
  * Contains sliders that can be altered to adjust speed and parameter values of the simulation.
  * Graph contains series that track the percentage of cells in each state at each generation of the simulation.
  * Can accomodate different grid cell shapes, such as Square or Triangle
+ * Large grids are drawn into a single GridCanvas image instead of one Polygon per cell
+ * The grid is drawn from the GridFrames published by the simulation's runner thread, once per display refresh
+ * An overlay on the grid shows the generations stepped per second and the engine's and drawing's metrics
  */
 public class UI extends Scene {
     private static final int WINDOW_HEIGHT = 775;
@@ -46,15 +63,21 @@ public class UI extends Scene {
 
     private static final int LINECHART_MAX_WIDTH = 600;
     private static final int LINECHART_MAX_HEIGHT = 350;
+    //points per state drawn on the chart, however many generations the history holds
+    private static final int LINECHART_MAX_POINTS = 400;
+    private static final String CSV_EXTENSION = "*.csv";
+    private static final String SNAPSHOT_EXTENSION = "*" + GridSnapshot.EXTENSION;
+    //the chart and the metrics overlay are refreshed at most this often, in nanoseconds
+    private static final long STATUS_INTERVAL = 250000000;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final String OVERLAY_STYLE = "-fx-background-color: rgba(255, 255, 255, 0.75); "
+            + "-fx-font-size: 10px; -fx-padding: 2px";
 
 
     public final int GRID_ROW_NUM;
     public final int GRID_COL_NUM;
     private final ObservableList<String> SIM_OPTIONS;
 
-    private final static int NUM_SQUARE_COORDINATES = 8;
-    private final static int NUM_TRIANGLE_COORDINATES = 6;
-
     private ResourceBundle myResources;
 
     private int CELL_HEIGHT;
@@ -62,19 +85,26 @@ public class UI extends Scene {
 
     private Group myRoot;
     private Simulation mySimulation;
-    private Map<Cell, Polygon> cellVisMap;
+    private Polygon[] myCellShapes;
+    private Paint[] myStatePaints;
     private String shape;
-    private int numCoordinates;
-    private Integer[] myStartingCoordinatesUpEven;
-    private Integer[] myStartingCoordinatesDownEven;
-    private Integer[] myStartingCoordinatesUpOdd;
-    private Integer[] myStartingCoordinatesDownOdd;
-    private Integer[] myStartingCoordinates;
+    private CellGeometry myGeometry;
+    private GridCanvas myGridCanvas;
+    private StateGrid myDisplayGrid;
+    private int[] myChanged;
+    private long myShownGeneration;
+    private Label myMetricsOverlay;
+    private long myStatusTime;
+    private long myStatusGeneration;
+    private MetricsRegistry myMetrics;
+    private Histogram myRenderNanos;
+    private Histogram myChartNanos;
 
     private Map<String, String> stateMap;
-    private Map<String, XYChart.Series> stateSeriesMap;
-    private int stepNum;
-    private List<Double> parametersList;
+    private Map<String, XYChart.Series<Number, Number>> stateSeriesMap;
+    private long[] myPointGenerations;
+    private int[] myPointCounts;
+    private ParameterBlock parametersList;
 
     /**
      *
@@ -82,14 +112,18 @@ public class UI extends Scene {
      * @param width number of Cell objects per row
      * @param height number of Cell rows
      * @param cellShape shape of Cell displayed in Grid, either Square or Triangle
-     * @param paramList list of parameters for simulation
+     * @param paramList parameters of the simulation, read by its rule
      * @param s simulation in which UI is instantiated
+     * @param previous UI of the simulation this one replaces, whose cell shapes are refilled and moved here
+     *                 if they have the same number, arrangement and shape, or null
      *          Sets size of window, gets appropriate resource bundle that stores text that will be displayed,
-     *          initializes coordinates of the first cells depending on cell shape
-     *          initializes map of each Cell to its corresponding Shape that is displayed
+     *          initializes coordinates of the cells depending on cell shape
+     *          initializes the Shape displayed for each Cell, indexed by the cell's flat index,
+     *          or a single GridCanvas for large grids
      *          sets up layout of the scene - buttons, parameters, graph, grid
      */
-    public UI(Group root, int width, int height, String cellShape, List<Double> paramList, Simulation s){
+    public UI(Group root, int width, int height, String cellShape, ParameterBlock paramList, Simulation s,
+              UI previous){
         super(root, WINDOW_WIDTH, WINDOW_HEIGHT, BACKGROUND_FILL);
         this.mySimulation = s;
         myRoot = root;
@@ -105,71 +139,148 @@ public class UI extends Scene {
                 myResources.getString("WaTor"),
                 myResources.getString("RPS"));
         parametersList = paramList;
-        initStartingCoordinates(cellShape);
-        stepNum = 0;
-        initCellVisMap();
+        myMetrics = s.getMetrics();
+        myRenderNanos = myMetrics.histogram(MetricsRegistry.RENDER_NANOS);
+        myChartNanos = myMetrics.histogram(MetricsRegistry.CHART_NANOS);
+        initDisplayGrid();
+        initGeometry(cellShape);
+        initCellShapes(previous);
         setOnMouseClicked(e -> handleCellClick(e.getX(), e.getY()));
         setupLayout();
     }
 
     /**
-     * Draws the grid of Shape objects that represent Cell objects according to the current state of each Cell
+     * Draws the grid of Shape objects that represent Cell objects according to the states in a frame
+     * Only the cells whose state differs from the last drawn frame are repainted, however many generations
+     * were stepped in between: those the frame lists, or those found by comparing the whole grid if it is whole
+     * @param frame GridFrame published by the simulation's runner
+     */
+    public void drawGrid(GridFrame frame){
+        long start = System.nanoTime();
+        int numChanged = frame.isWhole() ? diffStates(frame) : diffCells(frame);
+        myShownGeneration = frame.getGeneration();
+        if (myGridCanvas != null){
+            myGridCanvas.drawCells(myChanged, numChanged);
+        }
+        else {
+            for (int i = 0; i < numChanged; i++){
+                fillCellShape(myChanged[i]);
+            }
+        }
+        myRenderNanos.record(System.nanoTime() - start);
+    }
+
+    //copies the states of a whole frame that differ from the shown ones, listing their cells as changed
+    private int diffStates(GridFrame frame){
+        byte[] states = frame.getStates();
+        byte[] shown = myDisplayGrid.getCurrentPlane();
+        int numChanged = 0;
+        for (int cell = 0; cell < shown.length; cell++){
+            if (shown[cell] != states[cell]){
+                shown[cell] = states[cell];
+                myChanged[numChanged++] = cell;
+            }
+        }
+        return numChanged;
+    }
+
+    //copies the states of the cells a frame lists that differ from the shown ones, listing them as changed
+    private int diffCells(GridFrame frame){
+        int[] cells = frame.getCells();
+        byte[] states = frame.getCellStates();
+        byte[] shown = myDisplayGrid.getCurrentPlane();
+        int numChanged = 0;
+        for (int i = 0; i < frame.getNumCells(); i++){
+            int cell = cells[i];
+            if (shown[cell] != states[i]){
+                shown[cell] = states[i];
+                myChanged[numChanged++] = cell;
+            }
+        }
+        return numChanged;
+    }
+
+    private void fillCellShape(int cell){
+        myCellShapes[cell].setFill(myStatePaints[myDisplayGrid.getState(cell)]);
+    }
+
+    /**
+     * Refreshes the metrics overlay and, if the grid has advanced, the graph; expected to be called once per
+     * display refresh, but only does any work once every STATUS_INTERVAL
+     * @param now current time in nanoseconds, as given to an AnimationTimer
      */
-    public void drawGrid(){
-        for (Cell key: cellVisMap.keySet()){
-            String stateVis = stateMap.get(key.getState());
-            cellVisMap.get(key).setFill(Color.web(stateVis));
+    public void drawStatus(long now){
+        if (now - myStatusTime < STATUS_INTERVAL){
+            return;
         }
+        drawMetrics();
+        if (myShownGeneration != myStatusGeneration){
+            drawGraph();
+        }
+        myStatusTime = now;
+        myStatusGeneration = myShownGeneration;
     }
 
     /**
      * Draws the data on the graph for each state of the simulation, according to the current percentage of cells in
      * that state in the simulation
+     * The runner records the population of every generation in a bounded PopulationHistory and the chart shows a
+     * decimated view of it, so the chart's cost stays constant however long the simulation runs
      */
     public void drawGraph(){
-        for (Map.Entry<String, XYChart.Series> stateSeries: stateSeriesMap.entrySet()){
-            double statePercent = calcCellStatePercentage(stateSeries.getKey());
-            stateSeries.getValue().getData().add(new XYChart.Data(stepNum, statePercent));
-        }
-        stepNum++;
-    }
-
-    private void initStartingCoordinates(String shape){
-        switch (shape){
-            case "Square":
-                numCoordinates = NUM_SQUARE_COORDINATES;
-                CELL_HEIGHT = GRID_HEIGHT/GRID_ROW_NUM;
-                CELL_WIDTH = GRID_WIDTH/GRID_COL_NUM;
-                myStartingCoordinates = new Integer[]{
-                        0, 0,
-                        0, CELL_HEIGHT,
-                        CELL_WIDTH, CELL_HEIGHT,
-                        CELL_WIDTH, 0
-                };
-                return;
-            case "Triangle":
-                numCoordinates = NUM_TRIANGLE_COORDINATES;
-                CELL_HEIGHT = GRID_HEIGHT/GRID_ROW_NUM;
-                CELL_WIDTH = GRID_WIDTH/GRID_COL_NUM;
-                myStartingCoordinatesUpEven = new Integer[]{
-                        CELL_WIDTH/2, 0,
-                        0, CELL_HEIGHT,
-                        CELL_WIDTH, CELL_HEIGHT};
-                myStartingCoordinatesDownEven = new Integer[]{
-                        CELL_WIDTH/2, 0,
-                        CELL_WIDTH, CELL_HEIGHT,
-                        CELL_WIDTH + CELL_WIDTH/2, 0};
-                myStartingCoordinatesUpOdd = new Integer[]{
-                        CELL_WIDTH, 0,
-                        CELL_WIDTH/2, CELL_HEIGHT,
-                        CELL_WIDTH + CELL_WIDTH/2, CELL_HEIGHT};
-                myStartingCoordinatesDownOdd = new Integer[]{
-                        0, 0,
-                        CELL_WIDTH/2, CELL_HEIGHT,
-                        CELL_WIDTH, 0};
-                return;
+        long start = System.nanoTime();
+        PopulationHistory history = mySimulation.getHistory();
+        StateDictionary states = mySimulation.getEngine().getStates();
+        for (Map.Entry<String, XYChart.Series<Number, Number>> stateSeries: stateSeriesMap.entrySet()){
+            byte state = states.codeOf(stateSeries.getKey());
+            int numPoints;
+            synchronized (history){
+                numPoints = history.decimate(state, LINECHART_MAX_POINTS, myPointGenerations, myPointCounts);
+            }
+            List<XYChart.Data<Number, Number>> points = new ArrayList<>(numPoints);
+            for (int i = 0; i < numPoints; i++){
+                points.add(new XYChart.Data<>(myPointGenerations[i], calcCellStatePercentage(myPointCounts[i])));
             }
-        System.out.println("Invalid shape " + shape);
+            stateSeries.getValue().getData().setAll(points);
+        }
+        myChartNanos.record(System.nanoTime() - start);
+    }
+
+    //shows the generation rate, the mean changed cells and allocated bytes, and the means and 99th percentiles
+    //of the phases' times in milliseconds
+    private void drawMetrics(){
+        Histogram find = myMetrics.histogram(MetricsRegistry.FIND_NANOS);
+        Histogram commit = myMetrics.histogram(MetricsRegistry.COMMIT_NANOS);
+        myMetricsOverlay.setText(String.format(myResources.getString("MetricsOverlay"),
+                myMetrics.getGenerationRate(),
+                myMetrics.histogram(MetricsRegistry.CHANGED_CELLS).getMean(),
+                myMetrics.histogram(MetricsRegistry.ALLOCATED_BYTES).getMean(),
+                millis(find.getMean()), millis(find.get99thPercentile()),
+                millis(commit.getMean()), millis(commit.get99thPercentile()),
+                millis(myRenderNanos.getMean()), millis(myRenderNanos.get99thPercentile()),
+                millis(myChartNanos.getMean()), millis(myChartNanos.get99thPercentile())));
+    }
+
+    private double millis(double nanos){
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    //the UI's own copy of the states it has drawn, filled from the engine before the runner steps it
+    private void initDisplayGrid(){
+        GridEngine engine = mySimulation.getEngine();
+        myDisplayGrid = new StateGrid(GRID_ROW_NUM, GRID_COL_NUM);
+        System.arraycopy(engine.getGrid().getCurrentPlane(), 0, myDisplayGrid.getCurrentPlane(), 0,
+                myDisplayGrid.size());
+        myChanged = new int[myDisplayGrid.size()];
+        myShownGeneration = engine.getGeneration();
+        myStatusGeneration = myShownGeneration;
+        myStatusTime = System.nanoTime();
+    }
+
+    private void initGeometry(String shape){
+        CELL_HEIGHT = GRID_HEIGHT/GRID_ROW_NUM;
+        CELL_WIDTH = GRID_WIDTH/GRID_COL_NUM;
+        myGeometry = new CellGeometry(shape, GRID_ROW_NUM, GRID_COL_NUM, CELL_WIDTH, CELL_HEIGHT);
     }
 
     private LineChart<Number, Number> addGraph(){
@@ -180,143 +291,97 @@ public class UI extends Scene {
         yAxis.setLabel(myResources.getString("YAxisLabel"));
         lineChart.setTitle(myResources.getString("LineChartTitle"));
         lineChart.setMaxSize(LINECHART_MAX_WIDTH, LINECHART_MAX_HEIGHT);
+        lineChart.setAnimated(false);
+        lineChart.setCreateSymbols(false);
         initStateSeriesMap(lineChart);
         return lineChart;
     }
 
-    private void initStateSeriesMap(LineChart lineChart){
+    private void initStateSeriesMap(LineChart<Number, Number> lineChart){
+        myPointGenerations = new long[LINECHART_MAX_POINTS];
+        myPointCounts = new int[LINECHART_MAX_POINTS];
         stateSeriesMap = new HashMap<>();
         for (String state: stateMap.keySet()){
-            XYChart.Series series = new XYChart.Series();
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
             series.setName(state);
             stateSeriesMap.put(state, series);
             lineChart.getData().add(series);
         }
     }
 
-    private HashMap<String, Integer> makeStateNumMap(){
-        HashMap<String, Integer> stateNumMap = new HashMap<>();
-        for (String state: stateMap.keySet()){
-            stateNumMap.putIfAbsent(state, 0);
-        }
-        for (Cell cell: cellVisMap.keySet()){
-            stateNumMap.put(cell.getState(), stateNumMap.get(cell.getState()) + 1);
-        }
-        return stateNumMap;
-    }
-
-    private double calcCellStatePercentage(String state){
-        int numCells = makeStateNumMap().get(state);
-        double percent = (double) numCells/(GRID_COL_NUM * GRID_ROW_NUM);
-        System.out.println(percent + state);
-        return percent;
+    private double calcCellStatePercentage(int numCells){
+        return (double) numCells/(GRID_COL_NUM * GRID_ROW_NUM);
     }
 
-    private void initCellVisMap(){
+    private void initCellShapes(UI previous){
         stateMap = mySimulation.getStateImageMap();
-        Cell[][] cells = mySimulation.getGrid();
-        cellVisMap = new HashMap<>();
+        initStatePaints();
+        if (mySimulation.useGridCanvas()){
+            initGridCanvas();
+            return;
+        }
+        if (canReuseCellShapes(previous)){
+            //adding the shapes to this root removes them from the previous one
+            myCellShapes = previous.myCellShapes;
+            previous.myCellShapes = null;
+            for (int cell = 0; cell < myCellShapes.length; cell++){
+                fillCellShape(cell);
+            }
+            myRoot.getChildren().addAll(myCellShapes);
+            return;
+        }
+        myCellShapes = new Polygon[GRID_ROW_NUM * GRID_COL_NUM];
         for (int i = 0; i < GRID_ROW_NUM; i++){
             for (int j = 0; j < GRID_COL_NUM; j++){
-                Cell cell = cells[i][j];
-                Polygon cellShape = new Polygon(assignCurrentCoordinates(i, j));
-                cellShape.setFill(Color.web(stateMap.get(cell.getState())));
+                Polygon cellShape = new Polygon(myGeometry.getCoordinates(i, j));
                 cellShape.setStroke(Color.BLACK);
                 cellShape.setStrokeWidth(1);
-                cellVisMap.put(cell, cellShape);
+                myCellShapes[i * GRID_COL_NUM + j] = cellShape;
+                fillCellShape(i * GRID_COL_NUM + j);
             }
         }
-        for (Cell key: cellVisMap.keySet()){
-            myRoot.getChildren().add(cellVisMap.get(key));
-        }
+        myRoot.getChildren().addAll(myCellShapes);
     }
 
-    private void handleCellClick(double x, double y){
-        if (x <= GRID_WIDTH && y <= GRID_HEIGHT){
-            for (Map.Entry<Cell, Polygon> cell: cellVisMap.entrySet()){
-                if (cell.getValue().contains(x, y)){
-                    cell.getKey().userSwitchState();
-                    Paint fill = Color.web(stateMap.get(cell.getKey().getState()));
-                    cell.getValue().setFill(fill);
-                }
-            }
-        }
+    //the previous UI's polygons are at the same coordinates if it has the same grid size and cell shape
+    private boolean canReuseCellShapes(UI previous){
+        return previous != null && previous.myCellShapes != null && previous.GRID_ROW_NUM == GRID_ROW_NUM
+                && previous.GRID_COL_NUM == GRID_COL_NUM && previous.shape.equals(shape);
     }
 
-    private double[] assignCurrentCoordinates(int row, int col){
-        double [] myCoordinates = new double[numCoordinates];
-        for (int i = 0; i < numCoordinates; i++) {
-            if (i % 2 == 0){ //assign x coordinate
-                if (shape.equals("Square")){
-                    myCoordinates[i] = calcXCoordinateSquare(col, row, i);
-                    System.out.println("square coordinates " + row + "," + col);
-                }
-                else if (shape.equals("Triangle")){
-                    myCoordinates[i] = calcXCoordinateTriangle(col, row, i);
-                }
-            }
-            else {
-                if (shape.equals("Square")){
-                    myCoordinates[i] = calcYCoordinateSquare(col, row, i);
-                }
-                else if (shape.equals("Triangle")){
-                    myCoordinates[i] = calcYCoordinateTriangle(col, row, i);
-                }
-            }
+    //parses every state's color once, indexed by the state's code in the engine
+    private void initStatePaints(){
+        StateDictionary states = mySimulation.getEngine().getStates();
+        myStatePaints = new Paint[states.size()];
+        for (byte code = 0; code < states.size(); code++){
+            myStatePaints[code] = Color.web(stateMap.get(states.nameOf(code)));
         }
-        return myCoordinates;
     }
 
-    private int calcXCoordinateTriangle(int col, int row, int i){
-        int x;
-        if (row % 2 == 0){
-            if (col % 2 == 0){
-                x = myStartingCoordinatesUpEven[i] + col * CELL_WIDTH/2;
-            }
-            else {
-                x = myStartingCoordinatesDownEven[i] + col * CELL_WIDTH/2 + CELL_WIDTH/2 - CELL_WIDTH;
-            }
-        }
-        else {
-            if (col % 2 == 0){
-                x = myStartingCoordinatesDownOdd[i] + col * CELL_WIDTH/2;
-            }
-            else {
-                x = myStartingCoordinatesUpOdd[i] + col * CELL_WIDTH/2 + CELL_WIDTH/2 - CELL_WIDTH;
-            }
+    //cells are drawn at least one pixel wide (two for triangles) and the canvas scales the image to fit the grid area
+    private void initGridCanvas(){
+        int[] colors = new int[myStatePaints.length];
+        for (int code = 0; code < myStatePaints.length; code++){
+            colors[code] = GridCanvas.toArgb((Color) myStatePaints[code]);
         }
-        return x;
+        int cellWidth = Math.max(myGeometry.isSquare() ? 1 : 2, CELL_WIDTH);
+        int cellHeight = Math.max(1, CELL_HEIGHT);
+        myGeometry = new CellGeometry(shape, GRID_ROW_NUM, GRID_COL_NUM, cellWidth, cellHeight);
+        myGridCanvas = new GridCanvas(myGeometry, myDisplayGrid, colors, GRID_WIDTH, GRID_HEIGHT);
+        myRoot.getChildren().add(myGridCanvas);
     }
 
-    private int calcXCoordinateSquare(int col, int row, int i){
-        int x = myStartingCoordinates[i] + col * CELL_WIDTH;
-        return x;
-    }
-
-    private int calcYCoordinateTriangle(int col, int row, int i) {
-        int y;
-        if (row % 2 == 0){
-            if (col % 2 == 0){
-                y = myStartingCoordinatesUpEven[i] + row * CELL_HEIGHT;
-            }
-            else {
-                y = myStartingCoordinatesDownEven[i] + row * CELL_HEIGHT;
-            }
+    private void handleCellClick(double x, double y){
+        if (x > GRID_WIDTH || y > GRID_HEIGHT){
+            return;
         }
-        else {
-            if (col % 2 == 0){
-                y = myStartingCoordinatesDownOdd[i] + row * CELL_HEIGHT;
-            }
-            else {
-                y = myStartingCoordinatesUpOdd[i] + row * CELL_HEIGHT;
-            }
+        int index = myGridCanvas != null ? myGridCanvas.findCell(x, y) : myGeometry.findCell(x, y);
+        if (index < 0){
+            return;
         }
-        return y;
-    }
-
-    private int calcYCoordinateSquare(int col, int row, int i) {
-        int y = myStartingCoordinates[i] + row * CELL_HEIGHT;
-        return y;
+        int row = index / GRID_COL_NUM;
+        int col = index % GRID_COL_NUM;
+        mySimulation.runBetweenGenerations(() -> mySimulation.getEngine().userSwitchState(row, col));
     }
 
 
@@ -326,6 +391,15 @@ public class UI extends Scene {
         borderPane.setRight(addVBox());
         borderPane.setBottom(addHBox());
         myRoot.getChildren().add(borderPane);
+        myRoot.getChildren().add(metricsOverlay());
+    }
+
+    private Label metricsOverlay(){
+        myMetricsOverlay = new Label();
+        myMetricsOverlay.setStyle(OVERLAY_STYLE);
+        myMetricsOverlay.setMouseTransparent(true);
+        drawMetrics();
+        return myMetricsOverlay;
     }
 
     private VBox addVBox(){
@@ -343,6 +417,8 @@ public class UI extends Scene {
                 speedLabel(),
                 speedSlider(),
                 stepButton(),
+                exportButton(),
+                saveButton(),
                 switchSimulationDropdown());
         vbox.getChildren().add(paramSliderLabel());
         vbox.getChildren().addAll(paramSliders());
@@ -374,7 +450,6 @@ public class UI extends Scene {
     private Button pauseButton(){
         Button pauseButton = new Button(myResources.getString("PauseButton"));
         pauseButton.setOnMouseClicked(e -> mySimulation.pauseSimulation());
-        System.out.println("paused");
         return pauseButton;
     }
 
@@ -425,6 +500,56 @@ public class UI extends Scene {
         return stepButton;
     }
 
+    private Button exportButton(){
+        Button exportButton = new Button(myResources.getString("ExportButton"));
+        exportButton.setOnMouseClicked(e -> exportHistory());
+        return exportButton;
+    }
+
+    //writes the retained history at full resolution to a CSV file chosen by the user
+    private void exportHistory(){
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(myResources.getString("ExportChooserTitle"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(CSV_EXTENSION, CSV_EXTENSION));
+        File file = fileChooser.showSaveDialog(getWindow());
+        if (file == null){
+            return;
+        }
+        PopulationHistory history = mySimulation.getHistory();
+        try (PrintStream output = new PrintStream(file)){
+            synchronized (history){
+                history.writeCSV(output, mySimulation.getEngine().getStates().getNames());
+            }
+        }
+        catch (FileNotFoundException e){
+            new XMLAlert(myResources.getString("ExportButton"), file.getPath(), e.getMessage()).showAlert();
+        }
+    }
+
+    private Button saveButton(){
+        Button saveButton = new Button(myResources.getString("SaveButton"));
+        saveButton.setOnMouseClicked(e -> saveSnapshot());
+        return saveButton;
+    }
+
+    //saves the current generation to a snapshot file chosen by the user, which can be uploaded like an XML file
+    private void saveSnapshot(){
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(myResources.getString("SaveChooserTitle"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(SNAPSHOT_EXTENSION,
+                SNAPSHOT_EXTENSION));
+        File file = fileChooser.showSaveDialog(getWindow());
+        if (file == null){
+            return;
+        }
+        try {
+            mySimulation.saveSnapshot(file);
+        }
+        catch (IOException e){
+            new XMLAlert(myResources.getString("SaveButton"), file.getPath(), e.getMessage()).showAlert();
+        }
+    }
+
     private List<Slider> paramSliders(){
         List<Slider> sliders = new ArrayList<>();
         for(int i = 0; i < parametersList.size(); i++){
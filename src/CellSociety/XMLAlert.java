@@ -5,9 +5,15 @@ import javafx.scene.control.Alert;
 /**
  * Trigger Alert dialogue boxes when XMLParser encounters error/exceptional cases
  * or if any information is missing or mismatched in the parsed XML configuration file
+ * The dialogue box is only created when it is shown, so XMLParser can run without JavaFX;
+ * in headless mode the alert is printed to the standard error stream instead
  */
 public class XMLAlert{
-    private Alert myAlertBox;
+    private static boolean isHeadless = false;
+
+    private String myTitle;
+    private String myHeader;
+    private String myContent;
 
     /**
      * Constructor of an XMLAlert
@@ -17,18 +23,24 @@ public class XMLAlert{
      * @param content title of the pop-up AlertBox for this XMLAlert object
      */
     public XMLAlert(String title, String header, String content){
-        this.myAlertBox = new Alert(Alert.AlertType.ERROR);
-        this.myAlertBox.setTitle(title);
-        this.myAlertBox.setHeaderText(header);
-        this.myAlertBox.setContentText(content);
+        setText(title, header, content);
     }
 
     /**
      * Empty constructor
-     * Initialize nothing but the associated AlertBox as empty
+     * Initialize nothing but empty text for the associated AlertBox
      */
     public XMLAlert(){
-        this.myAlertBox = new Alert(Alert.AlertType.ERROR);
+        setText("", "", "");
+    }
+
+
+    /**
+     * Switch all XMLAlerts between popping up dialogue boxes and printing to the standard error stream
+     * @param headless true if no JavaFX application is running
+     */
+    public static void setHeadless(boolean headless){
+        isHeadless = headless;
     }
 
 
@@ -39,9 +51,9 @@ public class XMLAlert{
      * @param c content of  the AlertBox
      */
     public void setText(String t, String h, String c){
-        this.myAlertBox.setTitle(t);
-        this.myAlertBox.setHeaderText(h);
-        this.myAlertBox.setContentText(c);
+        this.myTitle = t;
+        this.myHeader = h;
+        this.myContent = c;
     }
 
 
@@ -50,11 +62,14 @@ public class XMLAlert{
      * The parsed information will not be adopted for initializing a grid until the other valid file is parsed
      */
     public void showAlert(){
-        this.myAlertBox.showAndWait();
+        if(isHeadless){
+            System.err.println(myTitle + ": " + myHeader + " " + myContent);
+            return;
+        }
+        Alert alertBox = new Alert(Alert.AlertType.ERROR);
+        alertBox.setTitle(myTitle);
+        alertBox.setHeaderText(myHeader);
+        alertBox.setContentText(myContent);
+        alertBox.showAndWait();
     }
-
-
-
-
-
 }
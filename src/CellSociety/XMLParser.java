@@ -1,17 +1,15 @@
 package CellSociety;
 
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 import static java.util.Map.entry;
@@ -24,6 +22,12 @@ import static java.util.Map.entry;
  * Read the simulation's size, type and initial configuration parameters from certain files
  * Has private methods for parsing contents in the file
  * and public methods for returning information to caller
+ *
+ * The file is read with a StAX stream reader instead of being loaded into a DOM, and explicitly specified
+ * cells are decoded straight into a byte array of state codes, so memory stays proportional to the grid
+ * even for files with millions of Cell entries. Cells are decoded during the single pass over the file if
+ * Width, Height and the States come before them, as in every file of this project; otherwise the
+ * cells are read in a second pass once the rest of the file is known.
  */
 public class XMLParser {
     // Immutable file path and XML tags for parsing file
@@ -35,6 +39,8 @@ public class XMLParser {
     static final String CELL_SHAPE_TAG = "CellShape";
     static final String CELL_NEIGHBOR_TAG = "NeighborStyle";
     static final String EDGE_TAG = "EdgeStyle";
+    static final String SEED_TAG = "Seed";
+    static final String EXACT_COUNTS_TAG = "ExactCounts";
     static final String STATE_TAG = "State";
     static final String STATE_NAME_TAG = "StateName";
     static final String STATE_IMG_TAG = "StateImage";
@@ -44,12 +50,17 @@ public class XMLParser {
     static final String CELL_ROW_TAG = "Row";
     static final String CELL_COL_TAG = "Col";
     static final String CELL_STATE_TAG = "CellState";
+    // Code of a cell whose state is not specified in the file
+    static final byte UNSPECIFIED = -1;
     private final Map<String, Integer> VALID_CELL_SHAPE_MAXNEIGHBOR = Map.ofEntries(
             entry("Square", 8),
             entry("Triangle", 12));
     private final List<String> VALID_EDGE_TYPE = List.of(
             "Finite",
             "Toroidal");
+    // Tags holding a single value, of which the first occurrence in the file is used
+    private final Set<String> VALUE_TAGS = Set.of(SIM_TYPE_TAG, WIDTH_TAG, HEIGHT_TAG, CONFIG_TAG,
+            CELL_SHAPE_TAG, CELL_NEIGHBOR_TAG, EDGE_TAG, SEED_TAG, EXACT_COUNTS_TAG);
 
     // XMLAlerts to pop up when encountering mal-formatted XML file
     // package-private variables
@@ -70,20 +81,32 @@ public class XMLParser {
             modelErrAlert, paramErrAlert, configErrAlert, neighborErrAlert, stateErrAlert, cellIdxAlert,
             cellStateAlert, cellConfigAlert, cellInfoAlert};
 
+    // private variables for storing the raw contents of the file
+    private XMLInputFactory myInputFactory;
+    private boolean isRead = false;
+    private Map<String, String> myTagText = new HashMap<>();
+    private List<String[]> myStateEntries = new ArrayList<>();
+    private List<String> myParamText = new ArrayList<>();
+    private boolean needsCellPass = false;
+    private Map<String, Byte> myStateCodes;
+    private int myNumCellEntries = 0;
+    private int myNumCellsSpecified = 0;
+    private XMLAlert myCellAlert;
+
     // private variables for storing parsing results
-    private DocumentBuilder myDBuilder;
     private String mySimulationType = "";
     private String myCellShape = "Square";
     private String myEdgeType = "Finite";
-    private Element mySimRoot;
     private Integer myWidth;
     private Integer myHeight;
-    private HashMap<String, String> stateImage = new HashMap<>();
+    private LinkedHashMap<String, String> stateImage = new LinkedHashMap<>();
     private HashMap<String, Double> statePercent = new HashMap<>();
-    private HashMap<List<Integer>, String> cellState = new HashMap<>();
+    private byte[] cellStates;
     private ArrayList<Double> parameters = new ArrayList<>();
     private ArrayList<Integer> neighbors = new ArrayList<>();
     private boolean specConfig = false;
+    private Long mySeed;
+    private boolean exactCounts = false;
     private boolean parseSuccess = true;
 
 
@@ -101,20 +124,21 @@ public class XMLParser {
             throw new Exception("Alert Setup went wrong", e);
         }
         try {
-            this.myDBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            // Error case: ParserConfigurationException handling
+            this.myInputFactory = XMLInputFactory.newInstance();
+        } catch (Error e) {
+            // Error case: no StAX implementation could be configured
             throw new Exception("ParserConfigurationException occurs", e);
         }
         try {
-            this.mySimRoot = getRootElement(f);
-        } catch (SAXException e) {
+            this.readFile(f, false);
+            this.isRead = true;
+        } catch (XMLStreamException e) {
             callAlert(SAXAlert);
         } catch (IOException e) {
             callAlert(fileNotFoundAlert);
         }
 
-        if (this.mySimRoot != null) {
+        if (this.isRead) {
             this.parseSimConfig();
             specConfig = this.parseSpecConfig();
             this.parseCellShape();
@@ -122,8 +146,10 @@ public class XMLParser {
             this.parseCellNeighbor();
             this.parseState();
             this.parseParam();
+            this.parseSeed();
+            this.parseExactCounts();
             if (this.specConfig) {
-                this.parseCell();
+                this.parseCell(f);
             }
         }
 
@@ -157,20 +183,156 @@ public class XMLParser {
     }
 
 
-    // Get root element of an XML file
-    private Element getRootElement(File xmlFile) throws IOException, SAXException {
-        Document myDoc;
-        myDBuilder.reset();
+    /**
+     * Stream through the XML file once, keeping the values, states and parameters it defines
+     * and decoding its cells when the grid they belong to is already known
+     *
+     * @param xmlFile the file to read
+     * @param cellsOnly true to read nothing but the cells, for the second pass
+     */
+    private void readFile(File xmlFile, boolean cellsOnly) throws IOException, XMLStreamException {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            XMLStreamReader reader = myInputFactory.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String tag = reader.getLocalName();
+                    if (CELL_TAG.equals(tag)) {
+                        readCell(reader, cellsOnly);
+                    } else if (cellsOnly) {
+                        continue;
+                    } else if (VALUE_TAGS.contains(tag)) {
+                        myTagText.putIfAbsent(tag, reader.getElementText());
+                    } else if (STATE_TAG.equals(tag)) {
+                        myStateEntries.add(readState(reader));
+                    } else if (PARAMETER_TAG.equals(tag)) {
+                        myParamText.add(reader.getElementText());
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+
+    // Read the name, image and percentage of a State element, any of which may be null if missing
+    private String[] readState(XMLStreamReader reader) throws XMLStreamException {
+        String[] entry = new String[3];
+        List<String> tags = List.of(STATE_NAME_TAG, STATE_IMG_TAG, STATE_PERCENT_TAG);
+        readChildren(reader, tags, entry);
+        return entry;
+    }
+
+
+    // Read the first text of each of the given child tags, up to the end of the current element
+    private void readChildren(XMLStreamReader reader, List<String> tags, String[] texts)
+            throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                int idx = tags.indexOf(reader.getLocalName());
+                if (idx >= 0 && texts[idx] == null) {
+                    texts[idx] = reader.getElementText();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+
+    /**
+     * Read one Cell element and write its state into the grid of cell states
+     * The first invalid cell is remembered and no further cells are decoded;
+     * its alert pops up in parseCell(), after the alerts of the rest of the file
+     */
+    private void readCell(XMLStreamReader reader, boolean cellsOnly) throws XMLStreamException {
+        String[] texts = new String[3];
+        readChildren(reader, List.of(CELL_ROW_TAG, CELL_COL_TAG, CELL_STATE_TAG), texts);
+        myNumCellEntries++;
+        if (myCellAlert != null || (!cellsOnly && !prepareCellStates())) {
+            return;
+        }
+        // Error case: missing cell information
+        if (texts[0] == null || texts[1] == null || texts[2] == null) {
+            myCellAlert = cellInfoAlert;
+            return;
+        }
+        int currRow = Integer.valueOf(texts[0]);
+        int currCol = Integer.valueOf(texts[1]);
+        // Error case: cell index out of bounds
+        if (!validateCellIdx(currRow, currCol)) {
+            myCellAlert = cellIdxAlert;
+            return;
+        }
+        Byte code = myStateCodes.get(texts[2]);
+        if (code == null && !cellsOnly) {
+            // The state may still be defined further down the file, so the cells are left to a second pass
+            needsCellPass = true;
+            cellStates = null;
+            return;
+        }
+        // Error case: invalid cell state configuration
+        if (code == null) {
+            myCellAlert = cellStateAlert;
+            return;
+        }
+        int idx = currRow * myWidth + currCol;
+        if (cellStates[idx] == UNSPECIFIED) {
+            myNumCellsSpecified++;
+        }
+        cellStates[idx] = code;
+    }
+
+
+    /**
+     * Allocate the grid of cell states for the first cell read in the single pass, if the grid's size and
+     * states are known by then; otherwise the cells are left to a second pass
+     *
+     * @return boolean value indicating whether cells can be decoded now
+     */
+    private boolean prepareCellStates() {
+        if (cellStates != null) {
+            return true;
+        }
+        String spec = myTagText.get(CONFIG_TAG);
+        if (needsCellPass || (spec != null && !Boolean.valueOf(spec))) {
+            return false;
+        }
         try {
-            myDoc = myDBuilder.parse(xmlFile);
-            return myDoc.getDocumentElement();
+            myWidth = Integer.valueOf(myTagText.get(WIDTH_TAG));
+            myHeight = Integer.valueOf(myTagText.get(HEIGHT_TAG));
+        } catch (NumberFormatException e) {
+            myWidth = null;
+            myHeight = null;
         }
-        // Error case: exception handling
-        catch (SAXException e) {
-            throw new SAXException("SAX Exception occurs", e);
-        } catch (IOException e) {
-            throw new IOException("IO Exception occurs", e);
+        if (myWidth == null || myStateEntries.isEmpty()) {
+            needsCellPass = true;
+            return false;
         }
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (String[] entry : myStateEntries) {
+            names.add(entry[0]);
+        }
+        initCellStates(names);
+        return true;
+    }
+
+
+    // Allocate the grid of cell states, with codes handed out in the order of the state names
+    private void initCellStates(Collection<String> stateNames) {
+        myStateCodes = new HashMap<>();
+        for (String name : stateNames) {
+            myStateCodes.put(name, (byte) myStateCodes.size());
+        }
+        cellStates = new byte[myWidth * myHeight];
+        Arrays.fill(cellStates, UNSPECIFIED);
     }
 
 
@@ -179,22 +341,22 @@ public class XMLParser {
      * Display alert dialogue box if information is missing
      */
     private void parseSimConfig() {
-        NodeList simTypeNode = this.mySimRoot.getElementsByTagName(SIM_TYPE_TAG);
+        String simType = myTagText.get(SIM_TYPE_TAG);
         // Error case: missing simulation type information
-        if (simTypeNode.getLength() == 0) {
+        if (simType == null) {
             callAlert(modelErrAlert);
             return;
         }
-        NodeList widthNode = this.mySimRoot.getElementsByTagName(WIDTH_TAG);
-        NodeList heightNode = this.mySimRoot.getElementsByTagName(HEIGHT_TAG);
+        String width = myTagText.get(WIDTH_TAG);
+        String height = myTagText.get(HEIGHT_TAG);
         // Error case: missing simulation grid size information
-        if (widthNode.getLength() == 0 || heightNode.getLength() == 0) {
+        if (width == null || height == null) {
             callAlert(gridErrAlert);
             return;
         }
-        mySimulationType = simTypeNode.item(0).getTextContent();
-        myWidth = Integer.valueOf(widthNode.item(0).getTextContent());
-        myHeight = Integer.valueOf(heightNode.item(0).getTextContent());
+        mySimulationType = simType;
+        myWidth = Integer.valueOf(width);
+        myHeight = Integer.valueOf(height);
     }
 
 
@@ -205,13 +367,13 @@ public class XMLParser {
      * @return
      */
     private boolean parseSpecConfig() {
-        NodeList specNode = this.mySimRoot.getElementsByTagName(CONFIG_TAG);
+        String spec = myTagText.get(CONFIG_TAG);
         // Error case: Missing file parsing specification info
-        if (specNode.getLength() == 0) {
+        if (spec == null) {
             callAlert(configErrAlert);
             return false;
         }
-        return Boolean.valueOf(specNode.item(0).getTextContent());
+        return Boolean.valueOf(spec);
     }
 
 
@@ -220,9 +382,8 @@ public class XMLParser {
      * Defaulted to Rectangle
      */
     private void parseCellShape() {
-        NodeList shapeNode = this.mySimRoot.getElementsByTagName(CELL_SHAPE_TAG);
-        if (shapeNode.getLength() != 0) {
-            String shape = shapeNode.item(0).getTextContent();
+        String shape = myTagText.get(CELL_SHAPE_TAG);
+        if (shape != null) {
             if (VALID_CELL_SHAPE_MAXNEIGHBOR.keySet().contains(shape)) {
                 myCellShape = shape;
             }
@@ -235,9 +396,8 @@ public class XMLParser {
      * Defaulted to Finite
      */
     private void parseEdgeType() {
-        NodeList edgeNode = this.mySimRoot.getElementsByTagName(EDGE_TAG);
-        if (edgeNode.getLength() != 0) {
-            String edge = edgeNode.item(0).getTextContent();
+        String edge = myTagText.get(EDGE_TAG);
+        if (edge != null) {
             if (VALID_EDGE_TYPE.contains(edge)) {
                 myEdgeType = edge;
             }
@@ -250,9 +410,9 @@ public class XMLParser {
      * Neighbors are numbered by integers (0-7 for Rectangle shape; 0-11 for Triangle shape) and stored in a list
      */
     private void parseCellNeighbor() {
-        NodeList neighborNode = this.mySimRoot.getElementsByTagName(CELL_NEIGHBOR_TAG);
-        if (neighborNode.getLength() != 0) {
-            String[] neighborsInString = neighborNode.item(0).getTextContent().split(";");
+        String neighborText = myTagText.get(CELL_NEIGHBOR_TAG);
+        if (neighborText != null) {
+            String[] neighborsInString = neighborText.split(";");
             for (String s : neighborsInString) {
                 Integer neighborIdx = Integer.valueOf(s);
                 if (neighborIdx >= VALID_CELL_SHAPE_MAXNEIGHBOR.get(myCellShape)) {
@@ -271,27 +431,22 @@ public class XMLParser {
      * Parse the names, associated visualization colors, and percentage distribution of the states in this simulation
      */
     private void parseState() {
-        NodeList stateList = this.mySimRoot.getElementsByTagName(STATE_TAG);
         // Error case: missing state information
-        if (stateList.getLength() == 0) {
+        if (myStateEntries.isEmpty()) {
             callAlert(stateErrAlert);
             return;
         }
-        for (int i = 0; i < stateList.getLength(); i++) {
-            Node stateNode = stateList.item(i);
-            NodeList currName = ((Element) stateNode).getElementsByTagName(STATE_NAME_TAG);
-            NodeList currImg = ((Element) stateNode).getElementsByTagName(STATE_IMG_TAG);
+        for (String[] stateEntry : myStateEntries) {
             // Error case: missing image for the specified state
-            if (currImg.getLength() == 0 || currName.getLength() == 0) {
+            if (stateEntry[1] == null || stateEntry[0] == null) {
                 callAlert(stateErrAlert);
                 return;
             }
-            String currStateName = currName.item(0).getTextContent();
-            stateImage.put(currStateName, currImg.item(0).getTextContent());
+            String currStateName = stateEntry[0];
+            stateImage.put(currStateName, stateEntry[1]);
 
-            NodeList currPercent = ((Element) stateNode).getElementsByTagName(STATE_PERCENT_TAG);
-            if (currPercent.getLength() != 0) {
-                statePercent.put(currStateName, Double.valueOf(currPercent.item(0).getTextContent()));
+            if (stateEntry[2] != null) {
+                statePercent.put(currStateName, Double.valueOf(stateEntry[2]));
             }
         }
         // Error case: number of states does not match state percentage map size
@@ -305,64 +460,74 @@ public class XMLParser {
      * Parse any possible parameter for this simulation (e.g. threshold, cell reproduce time, etc.)
      */
     private void parseParam() {
-        NodeList paramList = this.mySimRoot.getElementsByTagName(PARAMETER_TAG);
-        for (int i = 0; i < paramList.getLength(); i++) {
-            Node paramNode = paramList.item(i);
-            parameters.add(Double.valueOf(paramNode.getTextContent()));
+        for (String paramText : myParamText) {
+            parameters.add(Double.valueOf(paramText));
         }
     }
 
 
     /**
-     * Parse cell's initial state if specConfig flag is raised
-     * All cells' states are stored in a map and associated with row/column indices
+     * Parse the optional seed of the simulation's random numbers, which makes every run of the file identical
+     * Defaulted to none, in which case every run draws a new seed
      */
-    private void parseCell() {
-        NodeList cellList = this.mySimRoot.getElementsByTagName(CELL_TAG);
-        // Error case: file parsing specification does not match cell info
-        if (cellList.getLength() == 0) {
-            callAlert(cellConfigAlert);
-            return;
-        }
-        for (int i = 0; i < cellList.getLength(); i++) {
-            Node currCellNode = cellList.item(i);
-            // Error case: missing cell information
-            if (!validateCellInfo(currCellNode)) {
-                callAlert(cellInfoAlert);
-                return;
-            }
-            int currRow = Integer.valueOf(((Element) currCellNode).getElementsByTagName(CELL_ROW_TAG).item(0).getTextContent());
-            int currCol = Integer.valueOf(((Element) currCellNode).getElementsByTagName(CELL_COL_TAG).item(0).getTextContent());
-            // Error case: cell index out of bounds
-            if (!validateCellIdx(currRow, currCol)) {
-                callAlert(cellIdxAlert);
-                return;
-            }
-            String currState = ((Element) currCellNode).getElementsByTagName(CELL_STATE_TAG).item(0).getTextContent();
-            // Error case: invalid cell state configuration
-            if (!this.stateImage.containsKey(currState)) {
-                callAlert(cellStateAlert);
-                return;
-            }
-            cellState.put(Arrays.asList(currRow, currCol), currState);
+    private void parseSeed() {
+        String seed = myTagText.get(SEED_TAG);
+        if (seed != null) {
+            mySeed = Long.valueOf(seed);
         }
-        // Error case: number of cells does not match grid width/height configuration
-        if (cellState.keySet().size() != myWidth * myHeight) {
-            callAlert(cellInfoAlert);
+    }
+
+
+    /**
+     * Parse the optional flag indicating whether every state gets exactly its percentage of the cells,
+     * in a random order, rather than every cell's state being drawn from the percentages
+     * Defaulted to false
+     */
+    private void parseExactCounts() {
+        String exact = myTagText.get(EXACT_COUNTS_TAG);
+        if (exact != null) {
+            exactCounts = Boolean.valueOf(exact);
         }
     }
 
 
     /**
-     * Check whether cell's row/column indices and initial state are all given
+     * Check the cells' initial states if specConfig flag is raised
+     * All cells' states are stored as codes in a grid, row by row; cells the single pass over the file
+     * could not decode are read in a second pass now that the grid and its states are known
      *
-     * @param cellNode the current cell to validate
-     * @return boolean value indicating information valid or not
+     * @param f the file being parsed
      */
-    private boolean validateCellInfo(Node cellNode) {
-        return !(((Element) cellNode).getElementsByTagName(CELL_ROW_TAG).getLength() == 0
-                || ((Element) cellNode).getElementsByTagName(CELL_COL_TAG).getLength() == 0
-                || ((Element) cellNode).getElementsByTagName(CELL_STATE_TAG).getLength() == 0);
+    private void parseCell(File f) {
+        // Error case already alerted: missing grid size information
+        if (myWidth == null || myHeight == null) {
+            return;
+        }
+        if (needsCellPass) {
+            initCellStates(stateImage.keySet());
+            myNumCellEntries = 0;
+            myNumCellsSpecified = 0;
+            try {
+                readFile(f, true);
+            } catch (XMLStreamException | IOException e) {
+                callAlert(SAXAlert);
+                return;
+            }
+        }
+        // Error case: file parsing specification does not match cell info
+        if (myNumCellEntries == 0) {
+            callAlert(cellConfigAlert);
+            return;
+        }
+        // Error case: missing cell information, cell index out of bounds or invalid cell state configuration
+        if (myCellAlert != null) {
+            callAlert(myCellAlert);
+            return;
+        }
+        // Error case: number of cells does not match grid width/height configuration
+        if (myNumCellsSpecified != myWidth * myHeight) {
+            callAlert(cellInfoAlert);
+        }
     }
 
 
@@ -406,7 +571,7 @@ public class XMLParser {
 
 
     /**
-     * @return immutable map indicating the visualization color for each state
+     * @return immutable map indicating the visualization color for each state, in the order of the XML file
      */
     public Map<String, String> getStateImg() {
         return Collections.unmodifiableMap(this.stateImage);
@@ -439,10 +604,11 @@ public class XMLParser {
 
 
     /**
-     * @return immutable list explicitly defining the initial state of each cell
+     * @return array explicitly defining the initial state of each cell, row by row, as codes numbering the
+     * states in the order of getStateImg(); null if the cells are not specified in the file
      */
-    public Map<List<Integer>, String> getCellState() {
-        return Collections.unmodifiableMap(this.cellState);
+    public byte[] getCellStates() {
+        return this.specConfig ? this.cellStates : null;
     }
 
 
@@ -462,6 +628,14 @@ public class XMLParser {
     }
 
 
+    /**
+     * @return seed of the simulation's random numbers, or null if the file does not specify one
+     */
+    public Long getSeed() {
+        return this.mySeed;
+    }
+
+
     /**
      * @return boolean flag indicating whether the XML parsing process is completed successfully
      */
@@ -479,5 +653,14 @@ public class XMLParser {
     }
 
 
+    /**
+     * @return boolean flag indicating whether randomly assigned states are shuffled in exact numbers of cells
+     * given by their percentages, rather than drawn for every cell
+     */
+    public boolean isExactCounts() {
+        return this.exactCounts;
+    }
+
+
 
 }